@@ -0,0 +1,117 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import puzzlebench.PuzzleOperations;
+
+// The puzzle operations measured by the benchmarks in puzzlebench (see PuzzleOperations).
+public class PuzzleOperationsImpl implements PuzzleOperations {
+    private static final String GOAL_3 = "1 2 3 4 5 6 7 8 0";
+    private static final String GOAL_4 = "0 1 2 3 4 5 6 7 8 9 10 11 12 13 14 15"; // the goal of Korf's instances
+
+    // 3x3 instances with 6 to 10, 18 to 22 and 26 to 31 moves (the two 31 move boards are the hardest there are)
+    private static final String[] EASY_3 = {
+            "0 1 2 4 6 3 7 5 8", "0 1 3 4 2 8 7 6 5", "0 1 2 4 5 8 7 6 3", "0 2 3 1 8 5 4 7 6"};
+    private static final String[] MEDIUM_3 = {
+            "0 1 7 5 3 8 4 6 2", "1 5 3 4 0 8 6 7 2", "2 4 0 8 6 1 5 3 7", "7 2 0 3 1 6 5 8 4"};
+    private static final String[] HARD_3 = {
+            "7 5 3 2 8 4 0 6 1", "4 7 0 5 2 8 3 1 6", "8 6 7 2 5 4 3 0 1", "6 4 7 8 5 0 3 2 1"};
+    // The first three of Korf's 100 random 15 puzzle instances (57, 55 and 59 moves)
+    private static final String[] KORF_4 = {
+            "14 13 15 7 11 12 9 5 6 0 2 1 4 8 10 3",
+            "13 5 4 10 9 12 8 14 2 3 7 1 0 15 11 6",
+            "14 7 8 2 13 11 10 4 9 12 5 0 3 6 1 15"};
+
+    private Board goalBoard;
+    private Heuristic heuristic;
+    private List<Board> instances = new ArrayList<>();
+    private Board[] boards = new Board[0];
+    private BoardSymmetry symmetry;
+    private LongIntMap closedList;
+
+    @Override
+    public void prepareInstances(String instanceSet) {
+        String[] tiles;
+        if (instanceSet.startsWith("korf4-")) {
+            int number = Integer.parseInt(instanceSet.substring("korf4-".length()));
+            tiles = new String[] {KORF_4[number - 1]};
+            goalBoard = Board.parse(GOAL_4);
+            // Manhattan distance A* runs out of memory on these, they need the pattern databases
+            heuristic = PatternDatabaseHeuristic.loadDefault(goalBoard);
+        } else {
+            switch (instanceSet) {
+                case "easy3": tiles = EASY_3; break;
+                case "medium3": tiles = MEDIUM_3; break;
+                case "hard3": tiles = HARD_3; break;
+                default: throw new IllegalArgumentException("Unknown instance set " + instanceSet);
+            }
+            goalBoard = Board.parse(GOAL_3);
+            heuristic = new ManhattanHeuristic(goalBoard);
+        }
+        instances = new ArrayList<>();
+        for (String instance : tiles) {
+            instances.add(Board.parse(instance));
+        }
+    }
+
+    @Override
+    public int solveInstances() {
+        int moves = 0;
+        for (Board instance : instances) {
+            moves += AStarSolver.solve(instance, goalBoard, heuristic).size() - 1;
+        }
+        return moves;
+    }
+
+    @Override
+    public void prepareBoards(int size, int count, long seed) {
+        Random random = new Random(seed);
+        goalBoard = Board.standardGoal(size);
+        boards = new Board[count];
+        for (int i = 0; i < count; i++) {
+            boards[i] = randomWalk(goalBoard, random);
+        }
+    }
+
+    @Override
+    public Object generateNeighbors(int i) {
+        return boards[i].generateNeighbors();
+    }
+
+    @Override
+    public int hCalculatorManhattan(int i) {
+        return boards[i].hCalculatorManhattan(goalBoard);
+    }
+
+    @Override
+    public void prepareClosedSet() {
+        symmetry = BoardSymmetry.forGoal(goalBoard);
+        closedList = new LongIntMap();
+        for (int i = 0; i < boards.length; i += 2) {
+            closedList.put(symmetry.canonical(boards[i].getPacked()), i);
+        }
+        Random random = new Random(boards.length);
+        for (int i = 1; i < boards.length; i += 2) {
+            while (closedList.get(symmetry.canonical(boards[i].getPacked())) >= 0) {
+                boards[i] = randomWalk(goalBoard, random);
+            }
+        }
+    }
+
+    @Override
+    public int closedSetLookup(int i) {
+        return closedList.get(symmetry.canonical(boards[i].getPacked()));
+    }
+
+    // Private helper method to make a board some random moves away from the goal
+
+    private static Board randomWalk(Board goalBoard, Random random) {
+        Board board = goalBoard.copy();
+        int[] legalMoves = new int[4];
+        int steps = 20 + random.nextInt(60);
+        for (int step = 0; step < steps; step++) {
+            board.applyMove(legalMoves[random.nextInt(board.getLegalMoves(legalMoves))]);
+        }
+        return board;
+    }
+}
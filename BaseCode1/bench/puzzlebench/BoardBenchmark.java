@@ -0,0 +1,68 @@
+package puzzlebench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The per-board operations of the search: neighbor generation, the Manhattan distance and the
+// closed set lookup. Every operation works on the next of a fixed set of scrambled boards, so the
+// branch predictor cannot learn a single board.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardBenchmark {
+    private static final int BOARDS = 1024; // a power of two, see next()
+
+    @Param({"3", "4"})
+    public int size;
+
+    private PuzzleOperations operations;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        operations = PuzzleOperations.create();
+        operations.prepareBoards(size, BOARDS, 42);
+        operations.prepareClosedSet();
+    }
+
+    private int next() {
+        index = (index + 1) & (BOARDS - 1);
+        return index;
+    }
+
+    @Benchmark
+    public Object generateNeighbors() {
+        return operations.generateNeighbors(next());
+    }
+
+    @Benchmark
+    public int hCalculatorManhattan() {
+        return operations.hCalculatorManhattan(next());
+    }
+
+    // Boards of even index are in the closed set
+    @Benchmark
+    public int closedSetHit() {
+        return operations.closedSetLookup(next() & ~1);
+    }
+
+    // Boards of odd index are not
+    @Benchmark
+    public int closedSetMiss() {
+        return operations.closedSetLookup(next() | 1);
+    }
+}
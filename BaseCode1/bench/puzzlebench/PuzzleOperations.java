@@ -0,0 +1,39 @@
+package puzzlebench;
+
+// The puzzle operations the benchmarks measure.
+// JMH cannot generate benchmarks in the default package and a named package cannot refer to the
+// classes of the default package, so the benchmarks reach the puzzle through this interface. It is
+// implemented in the default package by PuzzleOperationsImpl; every call site only ever sees that one
+// implementation, so the JIT inlines the calls and they add nothing to the measurements.
+public interface PuzzleOperations {
+    // Creates the operations, loaded by name from the default package.
+    static PuzzleOperations create() {
+        try {
+            return (PuzzleOperations) Class.forName("PuzzleOperationsImpl").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("PuzzleOperationsImpl is missing from the benchmark jar", e);
+        }
+    }
+
+    // Prepares a fixed instance set: easy3, medium3, hard3 or korf4-1 to korf4-3.
+    void prepareInstances(String instanceSet);
+
+    // Solves every instance of the prepared set with AStarSolver.solve, returns the total number of moves.
+    int solveInstances();
+
+    // Prepares count boards of the given size, made by random walks from the goal.
+    void prepareBoards(int size, int count, long seed);
+
+    // Generates the neighbors of board i with Board.generateNeighbors.
+    Object generateNeighbors(int i);
+
+    // Computes Board.hCalculatorManhattan of board i.
+    int hCalculatorManhattan(int i);
+
+    // Fills an A* closed set (as AStarSolver keeps it) with the prepared boards of even index.
+    // Boards of odd index are replaced where needed so that none of them is in the set.
+    void prepareClosedSet();
+
+    // Looks up board i in the closed set the way AStarSolver does, returns the stored g or -1.
+    int closedSetLookup(int i);
+}
@@ -0,0 +1,65 @@
+package puzzlebench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// AStarSolver.solve on fixed instance sets. One operation solves every instance of the set.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class SolveBenchmark {
+
+    @State(Scope.Thread)
+    public static class Puzzle3 {
+        @Param({"easy3", "medium3", "hard3"})
+        public String instanceSet;
+
+        public PuzzleOperations operations;
+
+        @Setup
+        public void setUp() {
+            operations = PuzzleOperations.create();
+            operations.prepareInstances(instanceSet);
+        }
+    }
+
+    // The 4x4 instances take seconds each, so they get fewer and longer iterations
+    @State(Scope.Thread)
+    public static class Puzzle4 {
+        @Param({"korf4-1", "korf4-2", "korf4-3"})
+        public String instanceSet;
+
+        public PuzzleOperations operations;
+
+        @Setup
+        public void setUp() {
+            operations = PuzzleOperations.create();
+            operations.prepareInstances(instanceSet);
+        }
+    }
+
+    @Benchmark
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public int solve3x3(Puzzle3 puzzle) {
+        return puzzle.operations.solveInstances();
+    }
+
+    @Benchmark
+    @Warmup(iterations = 1, time = 10)
+    @Measurement(iterations = 3, time = 20)
+    public int solve4x4(Puzzle4 puzzle) {
+        return puzzle.operations.solveInstances();
+    }
+}
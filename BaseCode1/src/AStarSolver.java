@@ -1,74 +1,245 @@
-import java.util.HashSet;
-import java.util.PriorityQueue;
 import java.util.List;
 import java.util.ArrayList;
 
 public class AStarSolver {
+    // The most states of the A_STAR_OFF_HEAP engine, about 10 GB of direct memory for the table when all are
+    // used (see OffHeapStateTable) plus 4 bytes per entry of the open list
+    public static final long DEFAULT_OFF_HEAP_STATES = 1L << 30;
+
 	// Solves how to get the initial state to the final state with minimum moves
 	public static List<Board> solve(Board initialBoard, Board goalBoard) {
-		
+		return solve(initialBoard, goalBoard, new ManhattanHeuristic(goalBoard));
+	}
+
+	// Solves how to get the initial state to the final state with minimum moves,
+	// guided by the given heuristic (built for goalBoard)
+	public static List<Board> solve(Board initialBoard, Board goalBoard, Heuristic heuristic) {
+		return search(initialBoard, goalBoard, heuristic).toBoardList();
+	}
+
+	// Searches like solve and returns the moves with the metrics of the search
+	public static Solution search(Board initialBoard, Board goalBoard, Heuristic heuristic) {
+		return search(initialBoard, goalBoard, heuristic, null);
+	}
+
+	// Searches like solve, reporting progress to the listener (null for none)
+	public static Solution search(Board initialBoard, Board goalBoard, Heuristic heuristic, SearchListener listener) {
+		return search(initialBoard, goalBoard, heuristic, SearchLimits.NONE, listener);
+	}
+
+	// Searches like solve until the goal is reached or one of the limits is
+	public static Solution search(Board initialBoard, Board goalBoard, Heuristic heuristic, SearchLimits limits,
+			SearchListener listener) {
+		long start = System.nanoTime();
+		SearchMetrics metrics = new SearchMetrics();
+		if (!initialBoard.isPackable() || initialBoard.getSize() != goalBoard.getSize()) {
+			throw new IllegalArgumentException("A* needs boards of the same size, up to "
+					+ Board.MAX_PACKED_SIZE + "x" + Board.MAX_PACKED_SIZE);
+		}
 		// Check if the initial board state is solvable
-	    if (!initialBoard.isSolvable()) {
-	        System.out.println("The initial board state is not solvable.");
-	        return new ArrayList<>(); // Return an empty list
+	    if (!initialBoard.isSolvable(goalBoard)) {
+	        return Solution.unsolvable(initialBoard, metrics, start);
 	    }
 	    
-        PriorityQueue<Node> openList = new PriorityQueue<>();
-        HashSet<Board> closedList = new HashSet<>();
-        List<Board> solutionPath = new ArrayList<>();
+        // Twins under the symmetries of the goal need the same moves, only one of them is searched
+        BoardSymmetry symmetry = BoardSymmetry.forGoal(goalBoard);
+        OpenList openList = new OpenList(symmetry);
+        // canonical packed states of expanded boards -> g when expanded. Admissible heuristics that are
+        // not consistent (pattern databases) can expand a state before its cheapest path is found,
+        // it is then opened again.
+        LongIntMap closedList = new LongIntMap();
+        long goalState = goalBoard.getPacked();
 
-        openList.add(new Node(initialBoard, null, 0, initialBoard.hCalculatorManhattan(goalBoard)));
+        // One scratch board is moved in place to generate the neighbors of every expanded node
+        Board board = initialBoard.copy();
+        int[] legalMoves = new int[4];
+
+        openList.add(new Node(board.getPacked(), null, 0, heuristic.estimate(board), Board.NO_MOVE));
 
         while (!openList.isEmpty()) {
             Node currentNode = openList.poll();
-            Board currentBoard = currentNode.getBoard();
-            closedList.add(currentBoard);
+            long currentState = currentNode.getState();
+            closedList.put(symmetry.canonical(currentState), currentNode.getGValue());
 
-            if (currentBoard.isGoal(goalBoard)) {
-                solutionPath = getSolutionPath(currentNode);
-                break;
+            if (currentState == goalState) {
+                metrics.closed(closedList.size());
+                return Solution.solved(initialBoard, currentNode, metrics, start);
+            }
+            Solution.Status stop = limits.check(metrics.getExpanded());
+            if (stop != null) {
+                metrics.closed(closedList.size());
+                return Solution.stopped(initialBoard, stop, metrics, start);
+            }
+            metrics.expanded();
+            if (listener != null && metrics.getExpanded() % SearchMetrics.PROGRESS_INTERVAL == 0) {
+                metrics.closed(closedList.size());
+                metrics.fBound(currentNode.getFValue());
+                listener.onProgress(metrics);
             }
 
-            for (Board neighbor : currentBoard.generateNeighbors()) {
-                if (closedList.contains(neighbor))
+            board.setPacked(currentState);
+            int emptyCell = board.getEmptyCell();
+            int moveCount = board.getLegalMoves(legalMoves);
+            for (int i = 0; i < moveCount; i++) {
+                int move = legalMoves[i];
+                // the parent is already closed, so never walk straight back to it
+                if (currentNode.getMove() != Board.NO_MOVE && move == Board.reverseMove(currentNode.getMove()))
                     continue;
 
+                int tile = board.applyMove(move);
+                long neighborState = board.getPacked();
+                metrics.generated();
                 int newG = currentNode.getGValue() + 1;
-                int newH = neighbor.hCalculatorManhattan(goalBoard);
-                int newF = newG + newH;
-
-                boolean isOpen = false;
-                for (Node openNode : openList) {
-                    if (openNode.getBoard().equals(neighbor)) {
-                        isOpen = true;
-                        if (newF < openNode.getFValue()) {
-                            openNode.setGValue(newG);
-                            openNode.setHValue(newH);
-                            openNode.setParent(currentNode);
+                int closedG = closedList.get(symmetry.canonical(neighborState));
+                if (closedG < 0 || newG < closedG) {
+                    // only the moved tile changes its distance, it slid into the old empty cell
+                    int newH = heuristic.update(board, currentNode.getHValue(), tile, board.getEmptyCell(), emptyCell);
+
+                    Node openNode = openList.get(neighborState);
+                    if (openNode == null) {
+                        if (closedG >= 0) {
+                            metrics.reopened();
                         }
-                        break;
+                        openList.add(new Node(neighborState, currentNode, newG, newH, move));
+                    } else if (newG < openNode.getGValue()) {
+                        // compared by g: the open node may be a twin the heuristic estimates differently
+                        openList.decreaseKey(openNode, neighborState, newG, newH, currentNode, move);
+                    } else {
+                        metrics.duplicate();
                     }
+                } else {
+                    metrics.duplicate();
                 }
-
-                if (!isOpen) {
-                    openList.add(new Node(neighbor, currentNode, newG, newH));
-                }
+                board.undoMove(move);
             }
+            metrics.open(openList.size());
         }
 
-        return solutionPath;
+        metrics.closed(closedList.size());
+        return Solution.unsolvable(initialBoard, metrics, start);
     }
 
-    private static List<Board> getSolutionPath(Node goalNode) {
-        List<Board> solutionPath = new ArrayList<>();
-        Node currentNode = goalNode;
+    // Searches like search(initialBoard, goalBoard, heuristic, limits, listener) with the states in direct
+    // memory instead of Node objects: an OffHeapStateTable of up to maxStates states (10 to 12.5 bytes each,
+    // more while it grows) and a BucketOpenList of their slots (4 bytes per open entry), so the heap and
+    // the garbage collector stay out of large searches. Twins under the goal symmetries are searched separately. When the table
+    // is full, or the JVM has no direct memory left, the Solution has the OUT_OF_MEMORY status.
+    public static Solution searchOffHeap(Board initialBoard, Board goalBoard, Heuristic heuristic, long maxStates,
+            SearchLimits limits, SearchListener listener) {
+        long start = System.nanoTime();
+        SearchMetrics metrics = new SearchMetrics();
+        if (!initialBoard.isPackable() || initialBoard.getSize() != goalBoard.getSize()) {
+            throw new IllegalArgumentException("A* needs boards of the same size, up to "
+                    + Board.MAX_PACKED_SIZE + "x" + Board.MAX_PACKED_SIZE);
+        }
+        if (!initialBoard.isSolvable(goalBoard)) {
+            return Solution.unsolvable(initialBoard, metrics, start);
+        }
+
+        OffHeapStateTable table = new OffHeapStateTable(initialBoard.getSize(), maxStates);
+        BucketOpenList openList = new BucketOpenList();
+        long goalState = goalBoard.getPacked();
+        Board board = initialBoard.copy();
+        int[] legalMoves = new int[4];
 
-        while (currentNode != null) {
-            solutionPath.add(0, currentNode.getBoard()); // Add boards to the front of the list
-            currentNode = currentNode.getParent();
+        int root = table.add(board.getPacked());
+        table.setG(root, 0);
+        openList.add(root, 0, heuristic.estimate(board));
+        try {
+            int slot;
+            while ((slot = openList.poll()) != OffHeapStateTable.NO_SLOT) {
+                int g = openList.getPolledG();
+                if (table.isClosed(slot) || table.getG(slot) != g) {
+                    continue; // a stale entry, the state was added again with a smaller g
+                }
+                long currentState = table.getState(slot);
+                if (currentState == goalState) {
+                    metrics.closed(table.size());
+                    return offHeapSolution(initialBoard, table, currentState, g, metrics, start);
+                }
+                Solution.Status stop = limits.check(metrics.getExpanded());
+                if (stop != null) {
+                    metrics.closed(table.size());
+                    return Solution.stopped(initialBoard, stop, metrics, start);
+                }
+                table.setClosed(slot, true);
+                metrics.expanded();
+                if (listener != null && metrics.getExpanded() % SearchMetrics.PROGRESS_INTERVAL == 0) {
+                    metrics.closed(table.size());
+                    metrics.fBound(g + openList.getPolledH());
+                    listener.onProgress(metrics);
+                }
+
+                board.setPacked(currentState);
+                int emptyCell = board.getEmptyCell();
+                int currentMove = g == 0 ? Board.NO_MOVE : table.getMove(slot);
+                int moveCount = board.getLegalMoves(legalMoves);
+                for (int i = 0; i < moveCount; i++) {
+                    int move = legalMoves[i];
+                    if (currentMove != Board.NO_MOVE && move == Board.reverseMove(currentMove))
+                        continue;
+
+                    int tile = board.applyMove(move);
+                    long neighborState = board.getPacked();
+                    metrics.generated();
+                    int neighbor = table.add(neighborState);
+                    if (neighbor == OffHeapStateTable.NO_SLOT) {
+                        OffHeapStateTable larger = table.grown();
+                        if (larger == null) {
+                            metrics.closed(table.size());
+                            return Solution.stopped(initialBoard, Solution.Status.OUT_OF_MEMORY, metrics, start);
+                        }
+                        OffHeapStateTable smaller = table;
+                        openList.remap(old -> larger.find(smaller, old));
+                        table = larger;
+                        neighbor = table.add(neighborState);
+                    }
+                    int newG = g + 1;
+                    if (newG < table.getG(neighbor)) {
+                        if (table.isClosed(neighbor)) {
+                            metrics.reopened();
+                            table.setClosed(neighbor, false);
+                        }
+                        table.setG(neighbor, newG);
+                        table.setMove(neighbor, move);
+                        int newH = heuristic.update(board, openList.getPolledH(), tile, board.getEmptyCell(), emptyCell);
+                        openList.add(neighbor, newG, newH);
+                    } else {
+                        metrics.duplicate();
+                    }
+                    board.undoMove(move);
+                }
+                metrics.open(openList.size());
+            }
+        } catch (OutOfMemoryError e) {
+            // no direct memory left for the open list
+            metrics.closed(table.size());
+            return Solution.stopped(initialBoard, Solution.Status.OUT_OF_MEMORY, metrics, start);
         }
 
-        return solutionPath;
+        metrics.closed(table.size());
+        return Solution.unsolvable(initialBoard, metrics, start);
+    }
+
+    // Private helper method to follow the moves stored in the table back from the goal to the initial board
+    private static Solution offHeapSolution(Board initialBoard, OffHeapStateTable table, long goalState, int cost,
+            SearchMetrics metrics, long start) {
+        int[] moveCodes = new int[cost];
+        Board board = initialBoard.copy();
+        board.setPacked(goalState);
+        long initialState = initialBoard.getPacked();
+        int count = 0;
+        while (board.getPacked() != initialState) {
+            int move = table.getMove(table.find(board.getPacked()));
+            moveCodes[count++] = move;
+            board.undoMove(move);
+        }
+        for (int i = 0, j = count - 1; i < j; i++, j--) {
+            int move = moveCodes[i];
+            moveCodes[i] = moveCodes[j];
+            moveCodes[j] = move;
+        }
+        return Solution.solved(initialBoard, moveCodes, count, metrics, start);
     }
 
     public static void printSolution(Board goalBoard) {
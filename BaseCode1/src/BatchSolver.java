@@ -0,0 +1,215 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+// Solves many independent puzzles in parallel on a work-stealing ForkJoinPool.
+// Every solve runs on one worker thread; the heuristic of each goal board is built once and then
+// shared by all the solves towards that goal, since heuristics are read-only after construction.
+public class BatchSolver implements AutoCloseable {
+    // Receives the solution of one puzzle of a stream, index is the position of the puzzle in the stream
+    public interface ResultListener {
+        void onResult(long index, Puzzle puzzle, List<Board> solutionPath);
+    }
+
+    // Receives the result of one puzzle of a stream as moves with the metrics of its search
+    public interface SolutionListener {
+        void onSolution(long index, Puzzle puzzle, Solution solution);
+    }
+
+    private final SearchEngine engine;
+    private final HeuristicType heuristicType;
+    private final int parallelism; // Number of puzzles solved at the same time
+    private final ForkJoinPool pool;
+    private final SolutionCache cache; // null when solutions are not cached
+    private final ConcurrentHashMap<Board, Heuristic> heuristics = new ConcurrentHashMap<>(); // goal board -> shared heuristic
+    private final SearchMetrics metrics = SearchMetrics.total(); // of every solve so far
+
+    // Constructs a batch solver using A* with the Manhattan distance on all available cores.
+    public BatchSolver() {
+        this(SearchEngine.A_STAR, HeuristicType.MANHATTAN, Runtime.getRuntime().availableProcessors());
+    }
+
+    // Constructs a batch solver that solves at most parallelism puzzles at the same time.
+    public BatchSolver(SearchEngine engine, HeuristicType heuristicType, int parallelism) {
+        this(engine, heuristicType, parallelism, null);
+    }
+
+    // Constructs a batch solver that answers repeated puzzles from a solution cache (null for none).
+    public BatchSolver(SearchEngine engine, HeuristicType heuristicType, int parallelism, SolutionCache cache) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1, got " + parallelism);
+        }
+        this.engine = engine;
+        this.heuristicType = heuristicType;
+        this.parallelism = parallelism;
+        this.cache = cache;
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    // Gets the engine that solves the puzzles.
+    public SearchEngine getEngine() {
+        return engine;
+    }
+
+    // Gets the number of puzzles solved at the same time.
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    // Gets the shared heuristic for a goal board, building it on first use.
+    public Heuristic heuristicFor(Board goalBoard) {
+        Heuristic heuristic = heuristics.get(goalBoard);
+        if (heuristic == null) {
+            // key on a copy so later changes to the caller's board cannot corrupt the map
+            Board key = goalBoard.copy();
+            heuristic = heuristics.computeIfAbsent(key, heuristicType::create);
+        }
+        return heuristic;
+    }
+
+    // Solves one puzzle on the calling thread with the shared heuristic (and the cache, if any).
+    public List<Board> solve(Puzzle puzzle) {
+        return search(puzzle).toBoardList();
+    }
+
+    // Searches like solve and returns the moves with the metrics of the search, which are also added
+    // to the metrics of the batch.
+    public Solution search(Puzzle puzzle) {
+        return search(puzzle, SearchLimits.NONE);
+    }
+
+    // Searches like search(puzzle) until the goal is reached or one of the limits is. A search that
+    // runs out of memory gives a solution with the OUT_OF_MEMORY status, its states are garbage by then.
+    public Solution search(Puzzle puzzle, SearchLimits limits) {
+        Heuristic heuristic = heuristicFor(puzzle.getGoalBoard());
+        long start = System.nanoTime();
+        Solution solution;
+        try {
+            if (cache != null) {
+                solution = cache.search(puzzle.getInitialBoard(), puzzle.getGoalBoard(), engine, heuristic, limits);
+            } else {
+                solution = engine.search(puzzle.getInitialBoard(), puzzle.getGoalBoard(), heuristic, limits, null);
+            }
+        } catch (OutOfMemoryError e) {
+            solution = Solution.stopped(puzzle.getInitialBoard(), Solution.Status.OUT_OF_MEMORY, new SearchMetrics(),
+                    start);
+        }
+        metrics.add(solution.getMetrics());
+        return solution;
+    }
+
+    // Gets the metrics of all the solves so far, added together (cache hits count as searches that
+    // expanded nothing).
+    public SearchMetrics getMetrics() {
+        return metrics.copy();
+    }
+
+    // Searches a puzzle on a worker thread; the future completes with the result of search(puzzle, limits).
+    // Nothing bounds the number of submitted puzzles, callers that submit without waiting bound it themselves.
+    public CompletableFuture<Solution> submit(Puzzle puzzle, SearchLimits limits) {
+        return CompletableFuture.supplyAsync(() -> search(puzzle, limits), pool);
+    }
+
+    // Solves all the puzzles and returns their solutions in the same order.
+    public List<List<Board>> solveAll(List<Puzzle> puzzles) {
+        List<ForkJoinTask<List<Board>>> tasks = new ArrayList<>(puzzles.size());
+        for (Puzzle puzzle : puzzles) {
+            tasks.add(pool.submit(() -> solve(puzzle)));
+        }
+        List<List<Board>> solutions = new ArrayList<>(puzzles.size());
+        for (ForkJoinTask<List<Board>> task : tasks) {
+            solutions.add(task.join());
+        }
+        return solutions;
+    }
+
+    // Solves the puzzles of a stream and hands every solution to the listener as soon as it is found,
+    // so results arrive in completion order (use the index to restore the input order).
+    // At most a few puzzles per worker are in flight, so the stream is consumed lazily and can be
+    // much larger than memory. The listener is called from the worker threads. Returns when all the
+    // puzzles are solved; the first exception thrown by a solve or the listener is rethrown.
+    public void solveStream(Stream<Puzzle> puzzles, ResultListener listener) throws InterruptedException {
+        searchStream(puzzles, (index, puzzle, solution) -> listener.onResult(index, puzzle, solution.toBoardList()));
+    }
+
+    // Searches the puzzles of a stream like solveStream, handing the listener the moves with the
+    // metrics of every search instead of the boards.
+    public void searchStream(Stream<Puzzle> puzzles, SolutionListener listener) throws InterruptedException {
+        int maxInFlight = parallelism * 4;
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        long index = 0;
+        Iterator<Puzzle> iterator = puzzles.iterator();
+        while (iterator.hasNext() && failure.get() == null) {
+            Puzzle puzzle = iterator.next();
+            long puzzleIndex = index++;
+            inFlight.acquire();
+            pool.execute(() -> {
+                try {
+                    listener.onSolution(puzzleIndex, puzzle, search(puzzle));
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e); // an error must not lose the result silently either
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+        inFlight.acquire(maxInFlight); // wait for the puzzles still being solved
+        inFlight.release(maxInFlight);
+        Throwable e = failure.get();
+        if (e instanceof Error) {
+            throw (Error) e;
+        } else if (e != null) {
+            throw (RuntimeException) e;
+        }
+    }
+
+    // Searches the puzzles of a stream and hands the results to the listener in the order of the
+    // stream, on the calling thread. As in searchStream at most a few puzzles per worker are in
+    // flight: when the oldest one is still being solved, reading waits for it, so a slow puzzle
+    // holds back the results after it instead of letting them pile up.
+    // The first exception thrown by a solve or the listener is rethrown.
+    public void searchStreamInOrder(Stream<Puzzle> puzzles, SolutionListener listener) {
+        int maxInFlight = parallelism * 4;
+        ArrayDeque<Pending> pending = new ArrayDeque<>(maxInFlight);
+        long index = 0;
+        Iterator<Puzzle> iterator = puzzles.iterator();
+        while (iterator.hasNext()) {
+            if (pending.size() == maxInFlight) {
+                Pending oldest = pending.poll();
+                listener.onSolution(index++, oldest.puzzle, oldest.task.join());
+            }
+            Puzzle puzzle = iterator.next();
+            pending.add(new Pending(puzzle, pool.submit(() -> search(puzzle))));
+        }
+        while (!pending.isEmpty()) {
+            Pending oldest = pending.poll();
+            listener.onSolution(index++, oldest.puzzle, oldest.task.join());
+        }
+    }
+
+    // Stops the worker threads once the submitted puzzles are solved.
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    // A puzzle of an ordered stream with the task solving it
+    private static final class Pending {
+        private final Puzzle puzzle;
+        private final ForkJoinTask<Solution> task;
+
+        Pending(Puzzle puzzle, ForkJoinTask<Solution> task) {
+            this.puzzle = puzzle;
+            this.task = task;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// Bidirectional heuristic search that meets in the middle (the MM algorithm of Holte et al.).
+// One search runs forward from the initial board towards the goal and one backward from the goal
+// towards the initial board (moves are reversible, so both use the same move model). Nodes are
+// ordered by priority max(f, 2g), which keeps each search from going past the middle of the
+// solution. Whenever a state is reached by both searches their costs add up to a candidate
+// solution U. No solution cheaper than the smallest priority C in either open list can still be
+// found, so the search stops as soon as U <= C and U is optimal (with admissible heuristics).
+public class BidirectionalSolver {
+    // Open list order: smaller priority first, then the smaller g
+    private static final Comparator<Node> BY_PRIORITY = Comparator
+            .comparingInt(BidirectionalSolver::priority)
+            .thenComparingInt(Node::getGValue);
+
+    private final Direction forward;
+    private final Direction backward;
+    private int bestCost = Integer.MAX_VALUE; // U, the cost of the best solution found
+    private Node meetingForward; // the forward node of the best solution
+    private Node meetingBackward; // the backward node of the same state
+    private final SearchMetrics metrics = new SearchMetrics(); // both directions together
+    private SearchLimits limits = SearchLimits.NONE;
+    private SearchListener listener; // null for none
+
+    private BidirectionalSolver(Board initialBoard, Board goalBoard, Heuristic forwardHeuristic, Heuristic backwardHeuristic) {
+        forward = new Direction(initialBoard, forwardHeuristic);
+        backward = new Direction(goalBoard, backwardHeuristic);
+    }
+
+    // Solves how to get the initial state to the final state with minimum moves, guided by the
+    // Manhattan distance in both directions
+    public static List<Board> solve(Board initialBoard, Board goalBoard) {
+        return solve(initialBoard, goalBoard, new ManhattanHeuristic(goalBoard), new ManhattanHeuristic(initialBoard));
+    }
+
+    // Solves how to get the initial state to the final state with minimum moves.
+    // forwardHeuristic estimates the distance to goalBoard, backwardHeuristic the distance to initialBoard.
+    public static List<Board> solve(Board initialBoard, Board goalBoard, Heuristic forwardHeuristic, Heuristic backwardHeuristic) {
+        return search(initialBoard, goalBoard, forwardHeuristic, backwardHeuristic).toBoardList();
+    }
+
+    // Searches like solve and returns the moves with the metrics of the search
+    public static Solution search(Board initialBoard, Board goalBoard, Heuristic forwardHeuristic, Heuristic backwardHeuristic) {
+        return search(initialBoard, goalBoard, forwardHeuristic, backwardHeuristic, null);
+    }
+
+    // Searches like solve, reporting progress to the listener (null for none)
+    public static Solution search(Board initialBoard, Board goalBoard, Heuristic forwardHeuristic, Heuristic backwardHeuristic,
+            SearchListener listener) {
+        return search(initialBoard, goalBoard, forwardHeuristic, backwardHeuristic, SearchLimits.NONE, listener);
+    }
+
+    // Searches like solve until the goal is reached or one of the limits is
+    public static Solution search(Board initialBoard, Board goalBoard, Heuristic forwardHeuristic, Heuristic backwardHeuristic,
+            SearchLimits limits, SearchListener listener) {
+        long start = System.nanoTime();
+        if (!initialBoard.isPackable() || initialBoard.getSize() != goalBoard.getSize()) {
+            throw new IllegalArgumentException("Bidirectional search needs boards of the same size, up to "
+                    + Board.MAX_PACKED_SIZE + "x" + Board.MAX_PACKED_SIZE);
+        }
+        // Check if the initial board state is solvable
+        if (!initialBoard.isSolvable(goalBoard)) {
+            return Solution.unsolvable(initialBoard, new SearchMetrics(), start);
+        }
+
+        BidirectionalSolver solver = new BidirectionalSolver(initialBoard, goalBoard, forwardHeuristic, backwardHeuristic);
+        solver.limits = limits;
+        solver.listener = listener;
+        Solution.Status status = solver.run();
+        if (status == Solution.Status.UNSOLVABLE) {
+            return Solution.unsolvable(initialBoard, solver.metrics, start);
+        }
+        if (status != Solution.Status.SOLVED) {
+            return Solution.stopped(initialBoard, status, solver.metrics, start);
+        }
+        return Solution.solved(initialBoard, solver.getSolutionMoves(), solver.bestCost, solver.metrics, start);
+    }
+
+    // Private helper method for the MM priority of a node
+    private static int priority(Node node) {
+        return Math.max(node.getFValue(), 2 * node.getGValue());
+    }
+
+    // Runs both searches until the best solution is proven optimal or a limit is reached, returns how
+    // the search ended (UNSOLVABLE if there is no solution)
+    private Solution.Status run() {
+        long initialState = forward.rootState;
+        if (initialState == backward.rootState) {
+            meetingForward = forward.bestNodes.get(initialState);
+            meetingBackward = backward.bestNodes.get(initialState);
+            bestCost = 0;
+            return Solution.Status.SOLVED;
+        }
+        while (true) {
+            Node forwardTop = forward.peek();
+            Node backwardTop = backward.peek();
+            if (forwardTop == null && backwardTop == null) {
+                return bestCost != Integer.MAX_VALUE ? Solution.Status.SOLVED : Solution.Status.UNSOLVABLE;
+            }
+            int forwardPriority = forwardTop == null ? Integer.MAX_VALUE : priority(forwardTop);
+            int backwardPriority = backwardTop == null ? Integer.MAX_VALUE : priority(backwardTop);
+            if (bestCost <= Math.min(forwardPriority, backwardPriority)) {
+                return Solution.Status.SOLVED;
+            }
+            Solution.Status stop = limits.check(metrics.getExpanded());
+            if (stop != null) {
+                return stop;
+            }
+            if (forwardPriority <= backwardPriority) {
+                expand(forward, backward);
+            } else {
+                expand(backward, forward);
+            }
+        }
+    }
+
+    // Private helper method to expand the best node of one direction and look for meetings
+    private void expand(Direction direction, Direction other) {
+        Node node = direction.openList.poll();
+        metrics.expanded();
+        if (listener != null && metrics.getExpanded() % SearchMetrics.PROGRESS_INTERVAL == 0) {
+            listener.onProgress(metrics);
+        }
+        Board board = direction.board;
+        board.setPacked(node.getState());
+        int emptyCell = board.getEmptyCell();
+        int moveCount = board.getLegalMoves(direction.legalMoves);
+        for (int i = 0; i < moveCount; i++) {
+            int move = direction.legalMoves[i];
+            if (node.getMove() != Board.NO_MOVE && move == Board.reverseMove(node.getMove()))
+                continue;
+
+            int tile = board.applyMove(move);
+            long childState = board.getPacked();
+            metrics.generated();
+            int childG = node.getGValue() + 1;
+            Node known = direction.bestNodes.get(childState);
+            if (known != null && childG >= known.getGValue()) {
+                metrics.duplicate();
+            } else {
+                int childH = direction.heuristic.update(board, node.getHValue(), tile, board.getEmptyCell(), emptyCell);
+                Node child = new Node(childState, node, childG, childH, move);
+                direction.bestNodes.put(childState, child);
+                direction.openList.add(child);
+                metrics.open(forward.openList.size() + backward.openList.size());
+                metrics.closed(forward.bestNodes.size() + backward.bestNodes.size());
+
+                Node match = other.bestNodes.get(childState);
+                if (match != null && childG + match.getGValue() < bestCost) {
+                    bestCost = childG + match.getGValue();
+                    meetingForward = direction == forward ? child : match;
+                    meetingBackward = direction == forward ? match : child;
+                }
+            }
+            board.undoMove(move);
+        }
+    }
+
+    // Collects the moves of the solution: the forward chain up to the meeting state, then the
+    // backward chain from it to the goal with every move reversed
+    private int[] getSolutionMoves() {
+        int[] moves = new int[bestCost];
+        int index = meetingForward.getGValue();
+        for (Node node = meetingForward; node.getParent() != null; node = node.getParent()) {
+            moves[--index] = node.getMove();
+        }
+        index = meetingForward.getGValue();
+        for (Node node = meetingBackward; node.getParent() != null; node = node.getParent()) {
+            moves[index++] = Board.reverseMove(node.getMove());
+        }
+        return moves;
+    }
+
+    // The state of the search in one direction
+    private static final class Direction {
+        private final long rootState;
+        private final Heuristic heuristic; // estimates the distance to the other end
+        private final PriorityQueue<Node> openList = new PriorityQueue<>(BY_PRIORITY);
+        private final NodeMap bestNodes = new NodeMap(); // packed state -> cheapest node found, open or closed
+        private final Board board; // Scratch board moved in place to generate neighbors
+        private final int[] legalMoves = new int[4];
+
+        Direction(Board root, Heuristic heuristic) {
+            this.heuristic = heuristic;
+            this.board = root.copy();
+            rootState = root.getPacked();
+            Node rootNode = new Node(rootState, null, 0, heuristic.estimate(root), Board.NO_MOVE);
+            bestNodes.put(rootState, rootNode);
+            openList.add(rootNode);
+        }
+
+        // Gets the best open node, dropping entries that were superseded by a cheaper node
+        Node peek() {
+            Node top = openList.peek();
+            while (top != null && bestNodes.get(top.getState()) != top) {
+                openList.poll();
+                top = openList.peek();
+            }
+            return top;
+        }
+    }
+}
@@ -1,57 +1,122 @@
-import java.awt.Color;
-import java.awt.Point;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 
  // The Board class represents the state of a puzzle board.
  // It contains methods to perform moves, generate neighbors, calculate heuristic values, and more.
  
 public class Board implements Comparable<Board> {
-    // Constants for colors and line thickness
-    private static final Color backgroundColor = new Color(145, 234, 255);
-    private static final Color boxColor = new Color(31, 160, 239);
-    private static final double lineThickness = 0.02;
-
+    // Number of bits used for one cell in the packed encoding, which limits it to boards up to 4x4
+    private static final int BITS_PER_CELL = 4;
+    public static final int MAX_PACKED_SIZE = 4;
+    private static final long CELL_MASK = (1L << BITS_PER_CELL) - 1;
+
+    // Primitive move codes (the direction the empty cell moves), a move and its reverse differ in the lowest bit
+    public static final int MOVE_UP = 0;
+    public static final int MOVE_DOWN = 1;
+    public static final int MOVE_LEFT = 2;
+    public static final int MOVE_RIGHT = 3;
+    public static final int NO_MOVE = -1;
+    private static final String[] MOVE_LABELS = {"U", "D", "L", "R"};
+    private static final int[] ROW_DELTA = {-1, 1, 0, 0};
+    private static final int[] COL_DELTA = {0, 0, -1, 1};
+
+    private int size; // Number of rows (and columns) of the board
     private int[][] tiles; // Represents the arrangement of tiles on the board
+    private long packed; // The same arrangement packed into 4 bits per cell, cell 0 in the lowest bits (0 if the board is too big)
     private int emptyCellRow; // Row index of the empty cell
     private int emptyCellCol; // Column index of the empty cell
-    private List<String> moves; // List to store the sequence of moves made
+    private List<String> moves; // List to store the sequence of moves made (null until the first one)
     private String move; // Represents the latest move made
     private Board parent;
     
     // Constructors
 
     
-    // Constructs a new board with random tile arrangement.
+    // Constructs a new 3x3 board with random tile arrangement.
      
     public Board() {
-        tiles = new int[3][3];
-        moves = new ArrayList<>();
+        this(3);
+    }
+
+    // Constructs a new size x size board with random tile arrangement.
+
+    public Board(int size) {
+        if (size < 2) {
+            throw new IllegalArgumentException("A board needs at least 2 rows, got " + size);
+        }
+        this.size = size;
+        tiles = new int[size][size];
         initializeRandomBoard();
+        packed = isPackable() ? pack(tiles) : 0;
     }
 
-    // Constructs a board with the given tile arrangement.
+    // Constructs a board with the given (square) tile arrangement.
      
     public Board(int[][] tiles) {
+        size = tiles.length;
+        for (int[] row : tiles) {
+            if (row.length != size) {
+                throw new IllegalArgumentException("The tile arrangement must be square");
+            }
+        }
         this.tiles = tiles;
-        moves = new ArrayList<>();
         findEmptyCellPosition();
+        packed = isPackable() ? pack(tiles) : 0;
     }
     
-    // Private helper method to initialize a random board
+    // Parses a board from its tiles row by row, separated by commas or spaces, 0 for the empty cell
+    // (e.g. "1,2,3,4,5,6,7,8,0"). The tiles must be 0 to n*n-1 in any order.
+    public static Board parse(String text) {
+        String[] values = text.trim().split("[,\\s]+");
+        int size = (int) Math.round(Math.sqrt(values.length));
+        if (size < 2 || size * size != values.length) {
+            throw new IllegalArgumentException("Expected n*n tiles for an n x n board, got " + values.length);
+        }
+        int[][] tiles = new int[size][size];
+        boolean[] seen = new boolean[values.length];
+        for (int cell = 0; cell < values.length; cell++) {
+            int tile;
+            try {
+                tile = Integer.parseInt(values[cell]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Not a tile: " + values[cell]);
+            }
+            if (tile < 0 || tile >= values.length || seen[tile]) {
+                throw new IllegalArgumentException("The tiles must be 0 to " + (values.length - 1) + " once each");
+            }
+            seen[tile] = true;
+            tiles[cell / size][cell % size] = tile;
+        }
+        return new Board(tiles);
+    }
+
+    // Constructs the usual goal board of a size: tiles 1 to n*n-1 row by row, then the empty cell.
+    public static Board standardGoal(int size) {
+        int[][] tiles = new int[size][size];
+        for (int cell = 0; cell < size * size - 1; cell++) {
+            tiles[cell / size][cell % size] = cell + 1;
+        }
+        return new Board(tiles);
+    }
+
+    // Private helper method to initialize a random board: a uniform shuffle (Fisher-Yates), which can
+    // reach the standard goal only half the time (InstanceGenerator makes solvable boards only)
     private void initializeRandomBoard() {
-        List<Integer> numbers = new ArrayList<>(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 0));
-        for (int row = 0; row < 3; row++) {
-            for (int col = 0; col < 3; col++) {
-                int randomIndex = (int) (Math.random() * numbers.size());
-                tiles[row][col] = numbers.get(randomIndex);
-                if (numbers.get(randomIndex) == 0) {
-                    emptyCellRow = row;
-                    emptyCellCol = col;
-                }
-                numbers.remove(randomIndex);
+        int[] cells = new int[size * size];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < cells.length; i++) {
+            int j = random.nextInt(i + 1);
+            cells[i] = cells[j];
+            cells[j] = i;
+        }
+        for (int cell = 0; cell < cells.length; cell++) {
+            tiles[cell / size][cell % size] = cells[cell];
+            if (cells[cell] == 0) {
+                emptyCellRow = cell / size;
+                emptyCellCol = cell % size;
             }
         }
     }
@@ -61,94 +126,181 @@ public class Board implements Comparable<Board> {
     // Moves the empty cell to the right if possible.
      
     public boolean moveRight() {
-        if (emptyCellCol == 2)
-            return false;
-
-        swapTiles(emptyCellRow, emptyCellCol, emptyCellRow, emptyCellCol + 1);
-        emptyCellCol++;
-        moves.add("R");
-        System.out.println("Moved Right");
-        return true;
+        return recordMove(MOVE_RIGHT);
     }
 
     // Moves the empty cell to the left if possible.
      
     public boolean moveLeft() {
-        if (emptyCellCol == 0)
-            return false;
-
-        swapTiles(emptyCellRow, emptyCellCol, emptyCellRow, emptyCellCol - 1);
-        emptyCellCol--;
-        moves.add("L");
-        System.out.println("Moved Left");
-        return true;
+        return recordMove(MOVE_LEFT);
     }
 
     // Moves the empty cell up if possible.
      
     public boolean moveUp() {
-        if (emptyCellRow == 0)
-            return false;
-
-        swapTiles(emptyCellRow, emptyCellCol, emptyCellRow - 1, emptyCellCol);
-        emptyCellRow--;
-        moves.add("U");
-        System.out.println("Moved Up");
-        return true;
+        return recordMove(MOVE_UP);
     }
 
     // Moves the empty cell down if possible.
      
     public boolean moveDown() {
-        if (emptyCellRow == 2)
+        return recordMove(MOVE_DOWN);
+    }
+
+    // Private helper method to make a move and add it to the move history
+    private boolean recordMove(int move) {
+        if (!canMove(move))
             return false;
 
-        swapTiles(emptyCellRow, emptyCellCol, emptyCellRow + 1, emptyCellCol);
-        emptyCellRow++;
-        moves.add("D");
-        System.out.println("Moved Down");
+        applyMove(move);
+        moveHistory().add(MOVE_LABELS[move]);
         return true;
     }
 
-    // Private helper method to swap tiles
+    // In-place move methods used by the solvers (no move history, no allocation)
+
+    // Checks if the empty cell can move in the given direction.
+    public boolean canMove(int move) {
+        switch (move) {
+            case MOVE_UP:
+                return canMoveUp();
+            case MOVE_DOWN:
+                return canMoveDown();
+            case MOVE_LEFT:
+                return canMoveLeft();
+            case MOVE_RIGHT:
+                return canMoveRight();
+            default:
+                return false;
+        }
+    }
+
+    // Moves the empty cell in the given direction, which must be legal.
+    // Returns the tile that slid into the old position of the empty cell.
+    public int applyMove(int move) {
+        int row = emptyCellRow + ROW_DELTA[move];
+        int col = emptyCellCol + COL_DELTA[move];
+        int tile = tiles[row][col];
+        swapTiles(emptyCellRow, emptyCellCol, row, col);
+        emptyCellRow = row;
+        emptyCellCol = col;
+        return tile;
+    }
+
+    // Takes back a move made with applyMove.
+    public void undoMove(int move) {
+        applyMove(reverseMove(move));
+    }
+
+    // Fills the buffer with the legal move codes and returns how many there are.
+    // The buffer needs room for 4 moves.
+    public int getLegalMoves(int[] buffer) {
+        int count = 0;
+        if (canMoveUp())
+            buffer[count++] = MOVE_UP;
+        if (canMoveDown())
+            buffer[count++] = MOVE_DOWN;
+        if (canMoveLeft())
+            buffer[count++] = MOVE_LEFT;
+        if (canMoveRight())
+            buffer[count++] = MOVE_RIGHT;
+        return count;
+    }
+
+    // Gets the move that takes back the given move.
+    public static int reverseMove(int move) {
+        return move ^ 1;
+    }
+
+    // Gets the single-letter label of a move code ("U", "D", "L" or "R").
+    public static String moveLabel(int move) {
+        return MOVE_LABELS[move];
+    }
+
+    // Private helper method to swap tiles (keeps the packed encoding in sync)
     private void swapTiles(int row1, int col1, int row2, int col2) {
         int temp = tiles[row1][col1];
         tiles[row1][col1] = tiles[row2][col2];
         tiles[row2][col2] = temp;
+        if (isPackable()) {
+            packed = setCell(packed, row1 * size + col1, tiles[row1][col1]);
+            packed = setCell(packed, row2 * size + col2, tiles[row2][col2]);
+        }
     }
 
-    // Methods for drawing the board
+    // Methods for the packed encoding
 
-     // Draws the current state of the board.
-     
-    public void draw() {
-        StdDraw.clear(backgroundColor);
-        for (int row = 0; row < 3; row++) {
-            for (int col = 0; col < 3; col++) {
-                if (tiles[row][col] != 0) {
-                    Point tilePosition = getTilePosition(row, col);
-                    StdDraw.setPenColor(boxColor);
-                    StdDraw.filledSquare(tilePosition.x, tilePosition.y, 0.5);
-                    StdDraw.setPenColor(Color.BLACK);
-                    StdDraw.text(tilePosition.x, tilePosition.y, Integer.toString(tiles[row][col]));
-                }
+    // Packs the given tile arrangement into a long, 4 bits per cell in row-major order.
+    public static long pack(int[][] tiles) {
+        long state = 0;
+        int cell = 0;
+        for (int[] row : tiles) {
+            for (int value : row) {
+                state |= ((long) value & CELL_MASK) << (cell++ * BITS_PER_CELL);
+            }
+        }
+        return state;
+    }
+
+    // Unpacks a packed state into a new size x size tile arrangement.
+    public static int[][] unpack(long state, int size) {
+        int[][] result = new int[size][size];
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                result[row][col] = getCell(state, row * size + col);
             }
         }
-        StdDraw.setPenColor(boxColor);
-        StdDraw.setPenRadius(lineThickness);
-        StdDraw.square(1.5, 1.5, 1);
-        StdDraw.setPenRadius();
+        return result;
+    }
+
+    // Gets the tile stored in the given cell of a packed state.
+    public static int getCell(long state, int cell) {
+        return (int) ((state >>> (cell * BITS_PER_CELL)) & CELL_MASK);
+    }
+
+    // Returns a copy of the packed state with the given cell set to value.
+    public static long setCell(long state, int cell, int value) {
+        int shift = cell * BITS_PER_CELL;
+        return (state & ~(CELL_MASK << shift)) | (((long) value & CELL_MASK) << shift);
     }
 
-    // Private helper method to calculate tile position for drawing
-    private Point getTilePosition(int rowIndex, int colIndex) {
-        int posX = colIndex + 1;
-        int posY = 3 - rowIndex;
-        return new Point(posX, posY);
+    // Checks if the board is small enough to have a packed encoding.
+    public boolean isPackable() {
+        return size <= MAX_PACKED_SIZE;
+    }
+
+    // Gets the packed encoding of the current tile arrangement.
+    public long getPacked() {
+        if (!isPackable()) {
+            throw new UnsupportedOperationException("Only boards up to " + MAX_PACKED_SIZE + "x" + MAX_PACKED_SIZE
+                    + " have a packed encoding, this one is " + size + "x" + size);
+        }
+        return packed;
+    }
+
+    // Overwrites the tiles with a packed state, reusing the tile array.
+    public void setPacked(long state) {
+        if (!isPackable()) {
+            throw new UnsupportedOperationException("Only boards up to " + MAX_PACKED_SIZE + "x" + MAX_PACKED_SIZE
+                    + " have a packed encoding, this one is " + size + "x" + size);
+        }
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                tiles[row][col] = getCell(state, row * size + col);
+            }
+        }
+        packed = state;
+        findEmptyCellPosition();
     }
 
     // Getter methods
 
+    // Gets the number of rows (and columns) of the board.
+
+    public int getSize() {
+        return size;
+    }
+
     // Gets the current tile arrangement.
     
     public int[][] getTiles() {
@@ -167,6 +319,18 @@ public class Board implements Comparable<Board> {
         return emptyCellCol;
     }
 
+    // Gets the row-major index (row * size + column) of the empty cell.
+
+    public int getEmptyCell() {
+        return emptyCellRow * size + emptyCellCol;
+    }
+
+    // Gets the tile in the cell with the given row-major index.
+
+    public int getTile(int cell) {
+        return tiles[cell / size][cell % size];
+    }
+
     // Heuristic calculation methods
 
     // Calculates the F-value of the board based on a given goal board.
@@ -178,7 +342,7 @@ public class Board implements Comparable<Board> {
     // Gets the G-value, which represents the number of moves made so far.
      
     public int getGValue() {
-        return moves.size();
+        return moves == null ? 0 : moves.size();
     }
 
     // Calculates the Manhattan distance heuristic value based on a given goal board.
@@ -188,20 +352,8 @@ public class Board implements Comparable<Board> {
             return 0; // Return 0 if goalBoard is null
         }
 
-        int h = 0;
-
-        for (int i = 0; i < 3; i++) {
-            for (int j = 0; j < 3; j++) {
-                int value = tiles[i][j];
-                if (value != 0) {
-                    int goalRow = goalBoard.getRow(value);
-                    int goalCol = goalBoard.getColumn(value);
-                    h += Math.abs(i - goalRow) + Math.abs(j - goalCol);
-                }
-            }
-        }
-
-        return h;
+        // the distance table of the goal is built once and shared
+        return ManhattanHeuristic.forGoal(goalBoard).estimate(this);
     }
     
     // Calculates the number of misplaced tiles heuristic value based on a given goal board.
@@ -212,8 +364,8 @@ public class Board implements Comparable<Board> {
 
         int misplaced = 0;
 
-        for (int i = 0; i < 3; i++) {
-            for (int j = 0; j < 3; j++) {
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
                 if (tiles[i][j] != goalBoard.getTiles()[i][j]) {
                     misplaced++;
                 }
@@ -267,7 +419,7 @@ public class Board implements Comparable<Board> {
     // Private helper methods for checking possible moves
 
     private boolean canMoveRight() {
-        return emptyCellCol < 2;
+        return emptyCellCol < size - 1;
     }
 
     private boolean canMoveLeft() {
@@ -279,21 +431,30 @@ public class Board implements Comparable<Board> {
     }
 
     private boolean canMoveDown() {
-        return emptyCellRow < 2;
+        return emptyCellRow < size - 1;
     }
 
     // Private helper method to create a neighbor board
 
     private Board createNeighbor() {
-        int[][] neighborTiles = Arrays.stream(tiles).map(int[]::clone).toArray(int[][]::new);
-        return new Board(neighborTiles);
+        return copy();
+    }
+
+    // Creates a board with a copy of the current tile arrangement (without the move history).
+
+    public Board copy() {
+        int[][] copiedTiles = new int[size][];
+        for (int row = 0; row < size; row++) {
+            copiedTiles[row] = tiles[row].clone();
+        }
+        return new Board(copiedTiles);
     }
 
     // Methods for accessing specific tile positions
 
     public int getRow(int value) {
-        for (int i = 0; i < 3; i++) {
-            for (int j = 0; j < 3; j++) {
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
                 if (tiles[i][j] == value) {
                     return i;
                 }
@@ -303,8 +464,8 @@ public class Board implements Comparable<Board> {
     }
 
     public int getColumn(int value) {
-        for (int i = 0; i < 3; i++) {
-            for (int j = 0; j < 3; j++) {
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
                 if (tiles[i][j] == value) {
                     return j;
                 }
@@ -315,17 +476,39 @@ public class Board implements Comparable<Board> {
 
     // Methods for checking solvability and goal state
 
-    // Checks if the current board is solvable.
+    // Checks if the current board is solvable towards the standard goal (tiles in order, empty cell last).
      
     public boolean isSolvable() {
+        // the standard goal has no inversions and its empty cell in the last row
+        return solvabilityParity() == parityOf(size - 1);
+    }
+
+    // Checks if the goal board can be reached from the current board.
+
+    public boolean isSolvable(Board goalBoard) {
+        return size == goalBoard.size && solvabilityParity() == goalBoard.solvabilityParity();
+    }
+
+    // Private helper method for the parity that no move can change.
+    // For odd widths every move changes the inversion count by an even number, so the inversion
+    // parity is invariant. For even widths a vertical move changes it by an odd number and also moves
+    // the empty cell one row, so the parity of inversions plus the row of the empty cell is invariant.
+    private int solvabilityParity() {
         int inversions = countInversions();
-        return inversions % 2 == 0;
+        if (size % 2 == 1) {
+            return parityOf(inversions);
+        }
+        return parityOf(inversions + emptyCellRow);
+    }
+
+    private static int parityOf(int value) {
+        return value & 1;
     }
 
     // Private helper method to count inversions
 
     private int countInversions() {
-        int[] array = new int[9];
+        int[] array = new int[size * size];
         int k = 0;
         for (int[] row : tiles) {
             for (int value : row) {
@@ -347,7 +530,10 @@ public class Board implements Comparable<Board> {
     // Checks if the current board is the goal state.
      
     public boolean isGoal(Board goalBoard) {
-        return Arrays.deepEquals(this.tiles, goalBoard.tiles);
+        if (isPackable() && size == goalBoard.size) {
+            return packed == goalBoard.packed;
+        }
+        return Arrays.deepEquals(tiles, goalBoard.tiles);
     }
 
     // Methods for accessing move history
@@ -355,14 +541,14 @@ public class Board implements Comparable<Board> {
     // Gets the list of moves made so far.
      
     public List<String> getMoves() {
-        return moves;
+        return moveHistory();
     }
 
     // Gets the last move made.
-    
+    // Boards made by the solvers have no move history, their last move is the one set with setMove.
     public String getLastMove() {
-        if (moves.isEmpty()) {
-            return "";
+        if (moves == null || moves.isEmpty()) {
+            return move == null ? "" : move;
         }
         return moves.get(moves.size() - 1);
     }
@@ -372,7 +558,16 @@ public class Board implements Comparable<Board> {
     // Sets the G-value based on the number of moves.
     
     public void setGValue(int gValue) {
-        moves = new ArrayList<>(moves.subList(0, Math.min(gValue, moves.size())));
+        List<String> history = moveHistory();
+        moves = new ArrayList<>(history.subList(0, Math.min(gValue, history.size())));
+    }
+
+    // Private helper method to get the move history, created on the first move since most boards never need one
+    private List<String> moveHistory() {
+        if (moves == null) {
+            moves = new ArrayList<>();
+        }
+        return moves;
     }
     
     // Sets the parent board.
@@ -385,6 +580,31 @@ public class Board implements Comparable<Board> {
         return parent;
     }
 
+    // Methods for value-based equality (two boards are equal when their tiles are)
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof Board)) {
+            return false;
+        }
+        Board otherBoard = (Board) other;
+        if (size != otherBoard.size) {
+            return false;
+        }
+        if (isPackable()) {
+            return packed == otherBoard.packed;
+        }
+        return Arrays.deepEquals(tiles, otherBoard.tiles);
+    }
+
+    @Override
+    public int hashCode() {
+        return isPackable() ? Long.hashCode(packed) : Arrays.deepHashCode(tiles);
+    }
+
     // Method for comparing boards based on their F-values
 
     @Override
@@ -394,8 +614,8 @@ public class Board implements Comparable<Board> {
 
     // Private helper method to find the position of the empty cell
     private void findEmptyCellPosition() {
-        for (int i = 0; i < 3; i++) {
-            for (int j = 0; j < 3; j++) {
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
                 if (tiles[i][j] == 0) {
                     emptyCellRow = i;
                     emptyCellCol = j;
@@ -0,0 +1,134 @@
+import java.awt.Color;
+import java.util.Arrays;
+
+// Draws boards with StdDraw.
+// The drawing code lives here rather than in Board so that programs without a screen (the solvers,
+// SolverCli) never load StdDraw or the AWT classes.
+//
+// A renderer is made for one board size and keeps what it needs for every frame: the centers of the
+// cells, the labels of the tiles and the tile drawn in every cell, so after the first full drawing
+// only the cells that changed are drawn again. Below the board there is a line for status text.
+public class BoardRenderer {
+    // Constants for colors and line thickness
+    private static final Color backgroundColor = new Color(145, 234, 255);
+    private static final Color boxColor = new Color(31, 160, 239);
+    private static final double lineThickness = 0.02;
+    private static final int CANVAS_SIZE = 500; // pixels of the board
+    private static final int STATUS_HEIGHT = 40; // pixels of the status line
+
+    private final int size;
+    private final double[] cellX; // cell -> x of its center
+    private final double[] cellY;
+    private final String[] labels; // tile -> the text on it
+    private final int[] shown; // cell -> the tile drawn there, -1 when it has to be drawn again
+    private final double statusHeight; // in board units
+
+    // Constructs a renderer for boards of the given size.
+    public BoardRenderer(int size) {
+        this.size = size;
+        int cells = size * size;
+        cellX = new double[cells];
+        cellY = new double[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            cellX[cell] = cell % size + 1;
+            cellY[cell] = size - cell / size;
+        }
+        labels = new String[cells];
+        for (int tile = 1; tile < cells; tile++) {
+            labels[tile] = Integer.toString(tile);
+        }
+        shown = new int[cells];
+        Arrays.fill(shown, -1);
+        statusHeight = (double) size * STATUS_HEIGHT / CANVAS_SIZE;
+    }
+
+    // Draws the current state of a board on the canvas as it is set up (without a status line).
+    public static void draw(Board board) {
+        new BoardRenderer(board.getSize()).drawAll(board);
+    }
+
+    // Sets the size and the scale of the canvas for the board and the status line, with double buffering:
+    // nothing appears before StdDraw.show().
+    public void setUpCanvas() {
+        StdDraw.setCanvasSize(CANVAS_SIZE, CANVAS_SIZE + STATUS_HEIGHT);
+        StdDraw.setXscale(0.5, size + 0.5);
+        StdDraw.setYscale(0.5 - statusHeight, size + 0.5);
+        StdDraw.enableDoubleBuffering();
+    }
+
+    // Draws the whole board.
+    public void drawAll(Board board) {
+        StdDraw.clear(backgroundColor);
+        for (int cell = 0; cell < shown.length; cell++) {
+            int tile = board.getTile(cell);
+            if (tile != 0) {
+                drawTile(tile, cellX[cell], cellY[cell]);
+            }
+            shown[cell] = tile;
+        }
+        drawFrame();
+    }
+
+    // Draws the cells whose tile differs from the one drawn last, returns whether there were any.
+    public boolean drawChanges(Board board) {
+        boolean changed = false;
+        for (int cell = 0; cell < shown.length; cell++) {
+            int tile = board.getTile(cell);
+            if (tile != shown[cell]) {
+                clearCell(cell);
+                if (tile != 0) {
+                    drawTile(tile, cellX[cell], cellY[cell]);
+                }
+                shown[cell] = tile;
+                changed = true;
+            }
+        }
+        if (changed) {
+            drawFrame();
+        }
+        return changed;
+    }
+
+    // Draws a tile part of the way from one cell to another (fraction 0 to 1), both cells are cleared
+    // first. The next drawChanges draws both cells again.
+    public void drawSliding(int tile, int fromCell, int toCell, double fraction) {
+        clearCell(fromCell);
+        clearCell(toCell);
+        shown[fromCell] = -1;
+        shown[toCell] = -1;
+        double x = cellX[fromCell] + (cellX[toCell] - cellX[fromCell]) * fraction;
+        double y = cellY[fromCell] + (cellY[toCell] - cellY[fromCell]) * fraction;
+        drawTile(tile, x, y);
+        drawFrame();
+    }
+
+    // Replaces the text of the status line below the board.
+    public void drawStatus(String text) {
+        StdDraw.setPenColor(backgroundColor);
+        StdDraw.filledRectangle((size + 1) / 2.0, 0.5 - statusHeight / 2, size / 2.0 + 0.5, statusHeight / 2);
+        StdDraw.setPenColor(Color.BLACK);
+        StdDraw.textLeft(0.6, 0.5 - statusHeight / 2, text);
+    }
+
+    // Private helper methods for the parts of a board
+
+    private void drawTile(int tile, double x, double y) {
+        StdDraw.setPenColor(boxColor);
+        StdDraw.filledSquare(x, y, 0.5);
+        StdDraw.setPenColor(Color.BLACK);
+        StdDraw.text(x, y, labels[tile]);
+    }
+
+    private void clearCell(int cell) {
+        StdDraw.setPenColor(backgroundColor);
+        StdDraw.filledSquare(cellX[cell], cellY[cell], 0.5);
+    }
+
+    // The frame around the board, drawn again after cells on the border were
+    private void drawFrame() {
+        StdDraw.setPenColor(boxColor);
+        StdDraw.setPenRadius(lineThickness);
+        StdDraw.square((size + 1) / 2.0, (size + 1) / 2.0, size / 2.0);
+        StdDraw.setPenRadius();
+    }
+}
@@ -0,0 +1,181 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+// The symmetries of the puzzle that keep a goal board in place.
+// A symmetry is a rotation or reflection of the grid that leaves the empty cell of the goal where it
+// is, together with the relabelling of the tiles that turns the rotated goal back into the goal:
+// tile t becomes the goal tile at the rotated goal cell of t. Moves map to moves and the goal maps to
+// itself, so a board and all its images need the same number of moves. The group has at most 8
+// elements (a centered empty cell on an odd board), 2 for the usual corner goals and 1 for most
+// scrambled goals.
+//
+// The canonical form of a board is its image with the smallest packed state; boards with the same
+// canonical form are twins that only need to be searched or cached once.
+public class BoardSymmetry {
+    // The move codes and their row and column steps, in the order of the Board.MOVE_ constants
+    private static final int[] ROW_DELTA = {-1, 1, 0, 0};
+    private static final int[] COL_DELTA = {0, 0, -1, 1};
+
+    // Groups already built, by packed goal state
+    private static final ConcurrentHashMap<Long, BoardSymmetry> groups = new ConcurrentHashMap<>();
+
+    private final int cells;
+    private final int[][] cellMap; // cellMap[s][cell] is the cell the symmetry s moves cell to
+    private final int[][] tileMap; // tileMap[s][tile] is the label of tile after the symmetry s
+    private final int[][] moveMap; // moveMap[s][move] is the image of a move under the symmetry s
+    private final int[] inverse; // inverse[s] is the symmetry that undoes s
+
+    // Constructs the group of a goal board (at most 4x4, like the packed states it works on).
+    public BoardSymmetry(Board goalBoard) {
+        int size = goalBoard.getSize();
+        if (!goalBoard.isPackable()) {
+            throw new IllegalArgumentException("Symmetries need boards up to "
+                    + Board.MAX_PACKED_SIZE + "x" + Board.MAX_PACKED_SIZE);
+        }
+        cells = size * size;
+        int[] goalCellOf = new int[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            goalCellOf[goalBoard.getTile(cell)] = cell;
+        }
+
+        List<int[]> cellMaps = new ArrayList<>();
+        List<int[]> moveMaps = new ArrayList<>();
+        for (int s = 0; s < 8; s++) {
+            int[] map = new int[cells];
+            for (int cell = 0; cell < cells; cell++) {
+                map[cell] = transformCell(s, cell / size, cell % size, size);
+            }
+            if (map[goalBoard.getEmptyCell()] != goalBoard.getEmptyCell()) {
+                continue; // moves the empty cell of the goal
+            }
+            int[] moves = new int[4];
+            for (int move = 0; move < 4; move++) {
+                moves[move] = imageOfMove(s, move, size);
+            }
+            cellMaps.add(map);
+            moveMaps.add(moves);
+        }
+
+        int count = cellMaps.size();
+        cellMap = cellMaps.toArray(new int[0][]);
+        moveMap = moveMaps.toArray(new int[0][]);
+        tileMap = new int[count][cells];
+        inverse = new int[count];
+        for (int s = 0; s < count; s++) {
+            for (int tile = 0; tile < cells; tile++) {
+                tileMap[s][tile] = goalBoard.getTile(cellMap[s][goalCellOf[tile]]);
+            }
+            for (int t = 0; t < count; t++) {
+                if (undoes(cellMap[t], cellMap[s])) {
+                    inverse[s] = t;
+                }
+            }
+        }
+    }
+
+    // Gets the shared group of a goal board, building it on first use.
+    public static BoardSymmetry forGoal(Board goalBoard) {
+        return groups.computeIfAbsent(goalBoard.getPacked(), goalState -> new BoardSymmetry(goalBoard));
+    }
+
+    // Gets the number of symmetries, 1 when the goal only has the identity.
+    public int getCount() {
+        return cellMap.length;
+    }
+
+    // Gets the image of a packed state under the symmetry s.
+    public long transform(long state, int s) {
+        int[] cells = cellMap[s];
+        int[] tiles = tileMap[s];
+        long image = 0;
+        for (int cell = 0; cell < this.cells; cell++) {
+            image = Board.setCell(image, cells[cell], tiles[Board.getCell(state, cell)]);
+        }
+        return image;
+    }
+
+    // Gets the canonical form of a packed state, the smallest packed state among its images.
+    public long canonical(long state) {
+        long smallest = state;
+        for (int s = 1; s < cellMap.length; s++) {
+            smallest = Math.min(smallest, transform(state, s));
+        }
+        return smallest;
+    }
+
+    // Gets a symmetry that turns the packed state into its canonical form.
+    public int canonicalSymmetry(long state) {
+        long smallest = state;
+        int best = 0;
+        for (int s = 1; s < cellMap.length; s++) {
+            long image = transform(state, s);
+            if (image < smallest) {
+                smallest = image;
+                best = s;
+            }
+        }
+        return best;
+    }
+
+    // Getters for the maps of one symmetry
+
+    public int mapCell(int s, int cell) {
+        return cellMap[s][cell];
+    }
+
+    public int mapTile(int s, int tile) {
+        return tileMap[s][tile];
+    }
+
+    public int mapMove(int s, int move) {
+        return moveMap[s][move];
+    }
+
+    public int inverse(int s) {
+        return inverse[s];
+    }
+
+    // Private helper methods for the 8 isometries of the square
+
+    // The cell (row, col) moves to under isometry s: the identity, three rotations, the two diagonal
+    // reflections and the two axis reflections
+    private static int transformCell(int s, int row, int col, int size) {
+        int last = size - 1;
+        switch (s) {
+            case 0: return row * size + col;
+            case 1: return col * size + (last - row);
+            case 2: return (last - row) * size + (last - col);
+            case 3: return (last - col) * size + row;
+            case 4: return col * size + row;
+            case 5: return (last - col) * size + (last - row);
+            case 6: return row * size + (last - col);
+            default: return (last - row) * size + col;
+        }
+    }
+
+    // Checks if applying the cell map second after first leaves every cell in place
+    private static boolean undoes(int[] second, int[] first) {
+        for (int cell = 0; cell < first.length; cell++) {
+            if (second[first[cell]] != cell) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // The move with the step the isometry s turns the step of the move into
+    private static int imageOfMove(int s, int move, int size) {
+        // an isometry is affine, so the image of a step does not depend on where it starts
+        int origin = transformCell(s, 1, 1, size + 2);
+        int target = transformCell(s, 1 + ROW_DELTA[move], 1 + COL_DELTA[move], size + 2);
+        int rowStep = target / (size + 2) - origin / (size + 2);
+        int colStep = target % (size + 2) - origin % (size + 2);
+        for (int image = 0; image < 4; image++) {
+            if (ROW_DELTA[image] == rowStep && COL_DELTA[image] == colStep) {
+                return image;
+            }
+        }
+        throw new IllegalStateException("Not a move step: " + rowStep + "," + colStep);
+    }
+}
@@ -0,0 +1,140 @@
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.function.IntUnaryOperator;
+
+// The open list of the off-heap A* search: slots of an OffHeapStateTable in buckets by f and g.
+// f- and g-values of the puzzles are small integers, so a bucket per pair replaces the binary heap:
+// adding and polling take constant time, and ties on f go to the larger g (the deeper node).
+// Every bucket is a stack of int blocks in direct memory, 4 bytes per entry; empty blocks are kept
+// for reuse. An improved state is simply added again, the entry left in its old bucket is stale
+// and skipped by the caller (its g no longer matches the table).
+public class BucketOpenList {
+    public static final int MAX_F = 0xFF; // f- and g-values must stay below it
+
+    private static final int BLOCK_INTS = 1 << 14; // 64 KB blocks
+
+    // One bucket: full blocks followed by the one being filled
+    private static final class Bucket {
+        final ArrayList<IntBuffer> blocks = new ArrayList<>();
+        int top = BLOCK_INTS; // entries in the last block, a full one when there is none
+    }
+
+    private final Bucket[][] buckets = new Bucket[MAX_F][]; // f -> g -> bucket, made on first use
+    private final int[] maxG = new int[MAX_F]; // f -> the largest g that may have entries
+    private final ArrayDeque<IntBuffer> freeBlocks = new ArrayDeque<>();
+    private int minF = MAX_F; // no entries have a smaller f
+    private long size;
+    private int polledG;
+    private int polledH;
+
+    // Adds a slot with its g- and h-values.
+    // Throws OutOfMemoryError when there is no direct memory for a new block.
+    public void add(int slot, int g, int h) {
+        int f = g + h;
+        if (f >= MAX_F) {
+            throw new IllegalArgumentException("f must be below " + MAX_F + ", got " + f);
+        }
+        if (buckets[f] == null) {
+            buckets[f] = new Bucket[MAX_F];
+        }
+        Bucket bucket = buckets[f][g];
+        if (bucket == null) {
+            bucket = buckets[f][g] = new Bucket();
+        }
+        if (bucket.top == BLOCK_INTS) {
+            IntBuffer block = freeBlocks.poll();
+            bucket.blocks.add(block != null ? block : ByteBuffer.allocateDirect(BLOCK_INTS * Integer.BYTES).asIntBuffer());
+            bucket.top = 0;
+        }
+        bucket.blocks.get(bucket.blocks.size() - 1).put(bucket.top++, slot);
+        maxG[f] = Math.max(maxG[f], g);
+        minF = Math.min(minF, f);
+        size++;
+    }
+
+    // Removes the last slot added with the smallest f and the largest g for it, or returns
+    // OffHeapStateTable.NO_SLOT when the list is empty. Its values are then in getPolledG and getPolledH.
+    public int poll() {
+        for (; minF < MAX_F; minF++) {
+            Bucket[] row = buckets[minF];
+            if (row == null) {
+                continue;
+            }
+            for (int g = maxG[minF]; g >= 0; g--) {
+                Bucket bucket = row[g];
+                if (bucket != null && !bucket.blocks.isEmpty()) {
+                    maxG[minF] = g;
+                    ArrayList<IntBuffer> blocks = bucket.blocks;
+                    int slot = blocks.get(blocks.size() - 1).get(--bucket.top);
+                    if (bucket.top == 0) {
+                        freeBlocks.add(blocks.remove(blocks.size() - 1));
+                        bucket.top = BLOCK_INTS;
+                    }
+                    size--;
+                    polledG = g;
+                    polledH = minF - g;
+                    return slot;
+                }
+            }
+            maxG[minF] = 0;
+        }
+        return OffHeapStateTable.NO_SLOT;
+    }
+
+    // Gets the g-value of the slot returned by the last poll.
+    public int getPolledG() {
+        return polledG;
+    }
+
+    // Gets the h-value of the slot returned by the last poll.
+    public int getPolledH() {
+        return polledH;
+    }
+
+    // Gets the number of entries, stale ones included.
+    public long size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Replaces every slot by its image, after the table has grown.
+    public void remap(IntUnaryOperator slots) {
+        for (Bucket[] row : buckets) {
+            if (row == null) {
+                continue;
+            }
+            for (Bucket bucket : row) {
+                if (bucket == null) {
+                    continue;
+                }
+                for (int b = 0; b < bucket.blocks.size(); b++) {
+                    IntBuffer block = bucket.blocks.get(b);
+                    int count = b == bucket.blocks.size() - 1 ? bucket.top : BLOCK_INTS;
+                    for (int i = 0; i < count; i++) {
+                        block.put(i, slots.applyAsInt(block.get(i)));
+                    }
+                }
+            }
+        }
+    }
+
+    // Gets the direct memory the blocks take, the free ones included.
+    public long getBytes() {
+        long blocks = freeBlocks.size();
+        for (Bucket[] row : buckets) {
+            if (row != null) {
+                for (Bucket bucket : row) {
+                    if (bucket != null) {
+                        blocks += bucket.blocks.size();
+                    }
+                }
+            }
+        }
+        return blocks * BLOCK_INTS * Integer.BYTES;
+    }
+}
@@ -0,0 +1,437 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// A breadth-first search from a goal board over the whole state space, kept on disk: the distance
+// histogram of every board that can reach the goal, for state spaces far too big for memory.
+//
+// Every layer of states at one distance is a file of sorted packed states. The next layer is made
+// with delayed duplicate detection: the successors of the layer are collected in a buffer, which is
+// sorted, cleared of duplicates and written to a run file whenever it fills up. The runs are then
+// merged, and the states also found in the layer itself or the one before it are dropped on the way
+// (in a graph with reversible moves every neighbor of a layer is in one of these three). Only the
+// last two layers, the runs and the buffer exist at any time, there is no closed set.
+//
+// After every layer a checkpoint file records the histogram so far. A search that is stopped or
+// crashes resumes from its last checkpoint when it is started again on the same directory.
+//
+// Usage: java DiskFrontierSearch [--goal t,t,...] [--max-depth N] [--buffer N] <size> <directory>
+//   --goal t,t,...   the goal tiles, row by row with 0 for the empty cell (default the standard goal)
+//   --max-depth N    stop after the layer at distance N (default the whole state space)
+//   --buffer N       successors sorted in memory at a time, 8 bytes each (default 4M)
+public class DiskFrontierSearch {
+    private static final String USAGE = "Usage: java DiskFrontierSearch [--goal t,t,...] [--max-depth N] [--buffer N]"
+            + " <size> <directory>";
+
+    public static final int DEFAULT_BUFFER_STATES = 1 << 22;
+
+    private static final int MAGIC = 0x42465331; // "BFS1"
+    private static final int MAX_FAN_IN = 64; // runs merged at once, more are merged in passes
+    private static final int IO_BUFFER_BYTES = 1 << 16;
+    private static final String CHECKPOINT = "checkpoint.bin";
+
+    private final Board goalBoard;
+    private final Path directory;
+    private final long[] buffer;
+    private final Board board; // scratch board for the successors
+    private final int[] legalMoves = new int[4];
+    private int runCount;
+
+    // Constructs a search from the goal board with its files in the directory, sorting up to
+    // bufferStates successors in memory at a time.
+    public DiskFrontierSearch(Board goalBoard, Path directory, int bufferStates) {
+        if (!goalBoard.isPackable()) {
+            throw new IllegalArgumentException("Boards up to " + Board.MAX_PACKED_SIZE + "x" + Board.MAX_PACKED_SIZE
+                    + " have a packed encoding, this one is " + goalBoard.getSize() + "x" + goalBoard.getSize());
+        }
+        if (bufferStates < 4) {
+            throw new IllegalArgumentException("The buffer needs room for at least 4 states, got " + bufferStates);
+        }
+        this.goalBoard = goalBoard.copy();
+        this.directory = directory;
+        this.buffer = new long[bufferStates];
+        this.board = goalBoard.copy();
+    }
+
+    public static void main(String[] args) throws IOException {
+        Board goalBoard = null;
+        int maxDepth = Integer.MAX_VALUE;
+        int bufferStates = DEFAULT_BUFFER_STATES;
+        List<String> operands = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--goal":
+                        goalBoard = Board.parse(args[++i]);
+                        break;
+                    case "--max-depth":
+                        maxDepth = Integer.parseInt(args[++i]);
+                        break;
+                    case "--buffer":
+                        bufferStates = Integer.parseInt(args[++i]);
+                        break;
+                    default:
+                        if (args[i].startsWith("--")) {
+                            throw new IllegalArgumentException("Unknown option " + args[i]);
+                        }
+                        operands.add(args[i]);
+                }
+            }
+            if (operands.size() != 2) {
+                throw new IllegalArgumentException("Expected a size and a directory");
+            }
+            int size = Integer.parseInt(operands.get(0));
+            if (goalBoard == null) {
+                goalBoard = Board.standardGoal(size);
+            } else if (goalBoard.getSize() != size) {
+                throw new IllegalArgumentException("The goal is not a " + size + "x" + size + " board");
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            System.err.println(e instanceof ArrayIndexOutOfBoundsException ? "Missing option value" : e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        DiskFrontierSearch search = new DiskFrontierSearch(goalBoard, Paths.get(operands.get(1)), bufferStates);
+        long start = System.nanoTime();
+        long[] histogram = search.run(maxDepth, metrics -> System.err.printf("distance %d: %d states so far, %.1f s%n",
+                metrics.getFBound(), metrics.getPeakClosed(), (System.nanoTime() - start) / 1e9));
+        long total = 0;
+        for (int distance = 0; distance < histogram.length; distance++) {
+            System.out.println(distance + "\t" + histogram[distance]);
+            total += histogram[distance];
+        }
+        System.out.println("total\t" + total);
+    }
+
+    // Runs the search up to the layer at maxDepth, or until a layer is empty, starting from the last
+    // checkpoint in the directory if there is one. Returns the number of states at every distance.
+    public long[] run(int maxDepth) throws IOException {
+        return run(maxDepth, null);
+    }
+
+    // Runs the search like run(maxDepth), reporting to the listener (null for none) once at the start and
+    // after every layer. Its metrics have the last distance searched as the f-bound, the states found
+    // so far as the peak closed size and the layers expanded and their successors in this run.
+    public long[] run(int maxDepth, SearchListener listener) throws IOException {
+        Files.createDirectories(directory);
+        long[] histogram = readCheckpoint();
+        if (histogram == null) {
+            deleteFiles("layer-*");
+            deleteFiles("run-*");
+            writeLayer(0, new long[] {goalBoard.getPacked()}, 1);
+            histogram = new long[] {1};
+            writeCheckpoint(histogram);
+        } else {
+            // a crash may have left runs, a partial layer, or a layer the checkpoint no longer needs
+            deleteFiles("run-*");
+            deleteFiles("*.tmp");
+            deleteLayersBut(histogram.length - 1);
+        }
+
+        SearchMetrics metrics = new SearchMetrics();
+        long found = 0;
+        for (long count : histogram) {
+            found += count;
+        }
+        report(listener, metrics, histogram.length - 1, found);
+        while (histogram.length - 1 < maxDepth && histogram[histogram.length - 1] > 0) {
+            int depth = histogram.length; // the layer being made
+            long count = expand(depth, metrics);
+            histogram = Arrays.copyOf(histogram, depth + 1);
+            histogram[depth] = count;
+            writeCheckpoint(histogram);
+            if (depth >= 2) {
+                Files.deleteIfExists(layerFile(depth - 2));
+            }
+            found += count;
+            report(listener, metrics, depth, found);
+        }
+        // an empty last layer only marks the end of the state space
+        return histogram[histogram.length - 1] == 0 ? Arrays.copyOf(histogram, histogram.length - 1) : histogram;
+    }
+
+    // Private helper method to report the layers searched so far
+    private static void report(SearchListener listener, SearchMetrics metrics, int depth, long found) {
+        if (listener != null) {
+            metrics.fBound(depth);
+            metrics.closed(found);
+            listener.onProgress(metrics);
+        }
+    }
+
+    // Private helper method to make the layer at a depth from the two before it, returns its size
+    private long expand(int depth, SearchMetrics metrics) throws IOException {
+        runCount = 0;
+        List<Path> runs = new ArrayList<>();
+        int count = 0;
+        try (LayerReader layer = new LayerReader(layerFile(depth - 1))) {
+            while (layer.advance()) {
+                board.setPacked(layer.current);
+                metrics.expanded();
+                int moveCount = board.getLegalMoves(legalMoves);
+                for (int i = 0; i < moveCount; i++) {
+                    metrics.generated();
+                    if (count == buffer.length) {
+                        runs.add(writeRun(count));
+                        count = 0;
+                    }
+                    board.applyMove(legalMoves[i]);
+                    buffer[count++] = board.getPacked();
+                    board.undoMove(legalMoves[i]);
+                }
+            }
+        }
+        if (count > 0) {
+            runs.add(writeRun(count));
+        }
+        while (runs.size() > MAX_FAN_IN) {
+            List<Path> merged = new ArrayList<>();
+            for (int from = 0; from < runs.size(); from += MAX_FAN_IN) {
+                List<Path> group = runs.subList(from, Math.min(runs.size(), from + MAX_FAN_IN));
+                Path run = directory.resolve("run-" + runCount++ + ".bin");
+                merge(group, null, null, run);
+                merged.add(run);
+            }
+            runs = merged;
+        }
+
+        Path previous = depth >= 2 ? layerFile(depth - 2) : null;
+        Path temporary = directory.resolve("layer-" + depth + ".bin.tmp");
+        long size = merge(runs, layerFile(depth - 1), previous, temporary);
+        Files.move(temporary, layerFile(depth), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return size;
+    }
+
+    // Private helper method to sort the first count states of the buffer and write them to a new run,
+    // without duplicates
+    private Path writeRun(int count) throws IOException {
+        Arrays.sort(buffer, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || buffer[i] != buffer[unique - 1]) {
+                buffer[unique++] = buffer[i];
+            }
+        }
+        Path run = directory.resolve("run-" + runCount++ + ".bin");
+        try (LayerWriter writer = new LayerWriter(run)) {
+            for (int i = 0; i < unique; i++) {
+                writer.write(buffer[i]);
+            }
+        }
+        return run;
+    }
+
+    // Private helper method to merge sorted runs into one file without duplicates, leaving out the states
+    // of the two sorted layers (null for none). The runs are deleted. Returns the number of states written.
+    private static long merge(List<Path> runs, Path layer, Path previousLayer, Path output) throws IOException {
+        List<LayerReader> readers = new ArrayList<>();
+        long written = 0;
+        try (LayerWriter writer = new LayerWriter(output);
+                LayerReader current = layer != null ? new LayerReader(layer) : null;
+                LayerReader previous = previousLayer != null ? new LayerReader(previousLayer) : null) {
+            PriorityQueue<LayerReader> queue = new PriorityQueue<>((a, b) -> Long.compare(a.current, b.current));
+            for (Path run : runs) {
+                LayerReader reader = new LayerReader(run);
+                readers.add(reader);
+                if (reader.advance()) {
+                    queue.add(reader);
+                }
+            }
+            boolean currentLeft = current != null && current.advance();
+            boolean previousLeft = previous != null && previous.advance();
+            boolean any = false;
+            long last = 0;
+            while (!queue.isEmpty()) {
+                LayerReader reader = queue.poll();
+                long state = reader.current;
+                if (reader.advance()) {
+                    queue.add(reader);
+                }
+                if (any && state == last) {
+                    continue;
+                }
+                any = true;
+                last = state;
+                while (currentLeft && current.current < state) {
+                    currentLeft = current.advance();
+                }
+                while (previousLeft && previous.current < state) {
+                    previousLeft = previous.advance();
+                }
+                if ((currentLeft && current.current == state) || (previousLeft && previous.current == state)) {
+                    continue;
+                }
+                writer.write(state);
+                written++;
+            }
+        } finally {
+            for (LayerReader reader : readers) {
+                reader.close();
+            }
+        }
+        for (Path run : runs) {
+            Files.delete(run);
+        }
+        return written;
+    }
+
+    // Private helper method to write a layer file from sorted states
+    private void writeLayer(int depth, long[] states, int count) throws IOException {
+        Path temporary = directory.resolve("layer-" + depth + ".bin.tmp");
+        try (LayerWriter writer = new LayerWriter(temporary)) {
+            for (int i = 0; i < count; i++) {
+                writer.write(states[i]);
+            }
+        }
+        Files.move(temporary, layerFile(depth), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Gets the file of the sorted states at a distance, which exists for the last two distances searched.
+    public Path layerFile(int depth) {
+        return directory.resolve("layer-" + depth + ".bin");
+    }
+
+    // Methods for the checkpoint: the goal, the board size and the histogram so far
+
+    private void writeCheckpoint(long[] histogram) throws IOException {
+        ByteBuffer data = ByteBuffer.allocate(20 + 8 * histogram.length);
+        data.putInt(MAGIC).putLong(goalBoard.getPacked()).putInt(goalBoard.getSize()).putInt(histogram.length);
+        for (long count : histogram) {
+            data.putLong(count);
+        }
+        Path temporary = directory.resolve(CHECKPOINT + ".tmp");
+        Files.write(temporary, data.array());
+        Files.move(temporary, directory.resolve(CHECKPOINT), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Private helper method to read the checkpoint, null if there is none
+    private long[] readCheckpoint() throws IOException {
+        Path file = directory.resolve(CHECKPOINT);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (data.remaining() < 20 || data.getInt() != MAGIC) {
+            throw new IOException(file + " is not a checkpoint file");
+        }
+        if (data.getLong() != goalBoard.getPacked() || data.getInt() != goalBoard.getSize()) {
+            throw new IOException(directory + " holds a search towards another goal");
+        }
+        long[] histogram = new long[data.getInt()];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = data.getLong();
+        }
+        int depth = histogram.length - 1;
+        if (!Files.exists(layerFile(depth)) || (depth >= 1 && !Files.exists(layerFile(depth - 1)))) {
+            throw new IOException("The layer files of the checkpoint at distance " + depth + " are missing");
+        }
+        return histogram;
+    }
+
+    // Private helper method to delete the layer files but those of the last two distances up to depth
+    private void deleteLayersBut(int depth) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "layer-*.bin")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                int layer;
+                try {
+                    layer = Integer.parseInt(name.substring("layer-".length(), name.length() - ".bin".length()));
+                } catch (NumberFormatException e) {
+                    continue; // not a file of this search
+                }
+                if (layer != depth && layer != depth - 1) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    // Private helper method to delete the files of the directory matching a glob
+    private void deleteFiles(String glob) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, glob)) {
+            for (Path file : files) {
+                if (Files.isRegularFile(file)) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    // Reads the states of a layer or run file in order
+    private static final class LayerReader implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer data = ByteBuffer.allocateDirect(IO_BUFFER_BYTES);
+        long current; // the state read by the last advance
+
+        LayerReader(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            data.limit(0);
+        }
+
+        // Reads the next state into current, returns false at the end of the file
+        boolean advance() throws IOException {
+            if (data.remaining() < Long.BYTES) {
+                data.compact();
+                while (data.position() < Long.BYTES) {
+                    if (channel.read(data) < 0) {
+                        data.flip();
+                        return false;
+                    }
+                }
+                data.flip();
+            }
+            current = data.getLong();
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    // Writes states to a new layer or run file
+    private static final class LayerWriter implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer data = ByteBuffer.allocateDirect(IO_BUFFER_BYTES);
+
+        LayerWriter(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+        }
+
+        void write(long state) throws IOException {
+            if (!data.hasRemaining()) {
+                flush();
+            }
+            data.putLong(state);
+        }
+
+        private void flush() throws IOException {
+            data.flip();
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+            data.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+            channel.force(false);
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,290 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+// The optimal distance to one goal board of every solvable 3x3 board.
+// One breadth-first search from the goal visits all 181,440 states that can reach it and stores,
+// for each of them, the distance and a move that leads one step closer, in one byte. Solving a board
+// is then a walk along those moves, one table lookup per move, with no search at all.
+//
+// A state is indexed by the cell of the empty cell and the rank of the order of the 8 tiles in the
+// other cells. Swapping the last two tiles changes the tile order parity, and only one parity can
+// reach the goal, so the two ranks 2k and 2k + 1 share the index k and the table needs 9 * 8! / 2
+// bytes (about 180 KB). Tables can be saved to a file and memory-mapped back.
+public class DistanceTable {
+    private static final int SIZE = 3; // Only 3x3 boards have a table this small
+    private static final int CELLS = SIZE * SIZE;
+    private static final int ORDERS = 40320 / 2; // 8! / 2 tile orders per position of the empty cell
+    public static final int STATES = CELLS * ORDERS;
+
+    private static final int UNREACHED = 0xFF;
+    private static final int DISTANCE_MASK = 0x1F; // low 5 bits: distance (at most 31 for 3x3)
+    private static final int MOVE_SHIFT = 5; // bits 5 and 6: the move code one step closer to the goal
+    private static final int MAGIC = 0x44535431; // "DST1"
+    private static final int HEADER_LENGTH = 12; // magic and the packed goal state
+
+    // System property with the directory SearchEngine.LOOKUP_TABLE loads tables from (and saves them to)
+    public static final String DIRECTORY_PROPERTY = "puzzle.table.dir";
+
+    // Tables already built or mapped in this process, by packed goal state
+    private static final ConcurrentHashMap<Long, DistanceTable> tables = new ConcurrentHashMap<>();
+
+    private final Board goalBoard;
+    private final ByteBuffer data; // one entry per index, UNREACHED or distance | move << MOVE_SHIFT
+    private final int goalParity; // the tile order parity of the goal and of every board that can reach it
+
+    private DistanceTable(Board goalBoard, ByteBuffer data) {
+        this.goalBoard = goalBoard;
+        this.data = data;
+        this.goalParity = encode(goalBoard.getPacked()) & 1;
+    }
+
+    // Gets the shared table for a goal board: already in memory, mapped from the table directory,
+    // or built (and saved there if the directory property is set).
+    // Throws UncheckedIOException if the table directory is set but its file cannot be read or written.
+    public static DistanceTable forGoal(Board goalBoard) {
+        checkSize(goalBoard);
+        return tables.computeIfAbsent(goalBoard.getPacked(), goalState -> {
+            String directory = System.getProperty(DIRECTORY_PROPERTY);
+            if (directory == null) {
+                return build(goalBoard);
+            }
+            Path file = Paths.get(directory).resolve(fileName(goalBoard));
+            try {
+                if (Files.exists(file)) {
+                    return load(file, goalBoard);
+                }
+                DistanceTable table = build(goalBoard);
+                Files.createDirectories(file.getParent());
+                table.save(file);
+                return table;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // Solves a 3x3 board with table lookups only.
+    // Returns the same list of boards as AStarSolver.solve (an empty list when there is no solution).
+    public static List<Board> solve(Board initialBoard, Board goalBoard) {
+        return search(initialBoard, goalBoard).toBoardList();
+    }
+
+    // Solves like solve and returns the moves as a Solution
+    public static Solution search(Board initialBoard, Board goalBoard) {
+        checkSize(initialBoard);
+        return forGoal(goalBoard).search(initialBoard);
+    }
+
+    // Solves a board towards the goal of this table with table lookups only.
+    public Solution search(Board initialBoard) {
+        long start = System.nanoTime();
+        int distance = getDistance(initialBoard);
+        if (distance < 0) {
+            return Solution.unsolvable(initialBoard, new SearchMetrics(), start);
+        }
+        int[] moves = new int[distance];
+        long state = initialBoard.getPacked();
+        Board board = initialBoard.copy();
+        for (int step = 0; step < distance; step++) {
+            moves[step] = (data.get(index(state)) & 0xFF) >>> MOVE_SHIFT;
+            board.applyMove(moves[step]);
+            state = board.getPacked();
+        }
+        return Solution.solved(initialBoard, moves, distance, new SearchMetrics(), start);
+    }
+
+    // Gets the optimal number of moves from the board to the goal, or -1 if the goal cannot be reached.
+    public int getDistance(Board board) {
+        checkSize(board);
+        return getDistance(board.getPacked());
+    }
+
+    // Gets the optimal number of moves from a packed 3x3 state to the goal, or -1 if the goal cannot be reached.
+    public int getDistance(long state) {
+        int code = encode(state);
+        if ((code & 1) != goalParity) {
+            return -1; // shares its index with a board of the other parity
+        }
+        int entry = data.get(code >>> 1) & 0xFF;
+        return entry == UNREACHED ? -1 : entry & DISTANCE_MASK;
+    }
+
+    // Gets the packed state stored at an index of the table (the inverse of index).
+    public long getState(int index) {
+        int emptyCell = index / ORDERS;
+        int rank = (index % ORDERS) * 2;
+        long state = unrank(emptyCell, rank);
+        if ((encode(state) & 1) != goalParity) {
+            state = unrank(emptyCell, rank + 1); // the other tile order parity
+        }
+        return state;
+    }
+
+    // Gets the goal board of the table.
+    public Board getGoalBoard() {
+        return goalBoard.copy();
+    }
+
+    // Methods for the state index
+
+    // Gets the table index of a packed 3x3 state.
+    public static int index(long state) {
+        return encode(state) >>> 1;
+    }
+
+    // Private helper method for the index of a state shifted left by one, with the parity of the
+    // tile order in the low bit (boards with the other parity than the goal cannot reach it)
+    private static int encode(long state) {
+        int emptyCell = 0;
+        int rank = 0;
+        int inversions = 0;
+        int used = 0; // bit mask of the tiles already placed
+        int position = 0;
+        for (int cell = 0; cell < CELLS; cell++) {
+            int tile = Board.getCell(state, cell);
+            if (tile == 0) {
+                emptyCell = cell;
+                continue;
+            }
+            // Lehmer digit: tiles below this one that are still unused, each one comes later in the order
+            int digit = (tile - 1) - Integer.bitCount(used & ((1 << tile) - 1));
+            rank = rank * (CELLS - 1 - position) + digit;
+            inversions += digit;
+            used |= 1 << tile;
+            position++;
+        }
+        return (emptyCell * ORDERS + (rank >>> 1)) << 1 | (inversions & 1);
+    }
+
+    // Private helper method to rebuild a packed state from the empty cell and the tile order rank
+    private static long unrank(int emptyCell, int rank) {
+        int[] digits = new int[CELLS - 1];
+        for (int i = CELLS - 2; i >= 0; i--) {
+            int radix = CELLS - 1 - i;
+            digits[i] = rank % radix;
+            rank /= radix;
+        }
+        long state = 0;
+        int used = 0;
+        int position = 0;
+        for (int cell = 0; cell < CELLS; cell++) {
+            if (cell == emptyCell) {
+                continue;
+            }
+            int tile = 0;
+            for (int free = digits[position]; free >= 0; free--) {
+                tile++;
+                while ((used & (1 << tile)) != 0) {
+                    tile++;
+                }
+            }
+            used |= 1 << tile;
+            state = Board.setCell(state, cell, tile);
+            position++;
+        }
+        return state;
+    }
+
+    // Methods for building, saving and loading
+
+    // Builds the table of a goal board with a breadth-first search from the goal.
+    public static DistanceTable build(Board goalBoard) {
+        checkSize(goalBoard);
+        byte[] data = new byte[STATES];
+        Arrays.fill(data, (byte) UNREACHED);
+        long[] queue = new long[STATES];
+        int head = 0;
+        int tail = 0;
+        long goalState = goalBoard.getPacked();
+        queue[tail++] = goalState;
+        data[index(goalState)] = 0;
+
+        Board board = goalBoard.copy();
+        int[] legalMoves = new int[4];
+        while (head < tail) {
+            long state = queue[head++];
+            int distance = data[index(state)] & DISTANCE_MASK;
+            board.setPacked(state);
+            int moveCount = board.getLegalMoves(legalMoves);
+            for (int i = 0; i < moveCount; i++) {
+                int move = legalMoves[i];
+                board.applyMove(move);
+                long next = board.getPacked();
+                int nextIndex = index(next);
+                if ((data[nextIndex] & 0xFF) == UNREACHED) {
+                    // from the new state the reverse move leads back one step closer to the goal
+                    data[nextIndex] = (byte) ((distance + 1) | (Board.reverseMove(move) << MOVE_SHIFT));
+                    queue[tail++] = next;
+                }
+                board.undoMove(move);
+            }
+        }
+        return new DistanceTable(goalBoard.copy(), ByteBuffer.wrap(data));
+    }
+
+    // Gets the file name used for the table of a goal board.
+    public static String fileName(Board goalBoard) {
+        return "distances-" + Long.toHexString(goalBoard.getPacked()) + ".bin";
+    }
+
+    // Writes the table to a file (written to a temporary file first and then moved into place).
+    public void save(Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+            header.putInt(MAGIC).putLong(goalBoard.getPacked()).flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            ByteBuffer body = data.duplicate();
+            body.clear();
+            while (body.hasRemaining()) {
+                channel.write(body);
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Maps a table file read-only.
+    public static DistanceTable load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() != HEADER_LENGTH + STATES) {
+                throw new IOException(file + " is not a distance table file");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_LENGTH);
+            if (header.getInt() != MAGIC) {
+                throw new IOException(file + " is not a distance table file");
+            }
+            Board goalBoard = new Board(Board.unpack(header.getLong(), SIZE));
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_LENGTH, STATES);
+            return new DistanceTable(goalBoard, data);
+        }
+    }
+
+    // Maps a table file read-only, rejecting a table of another goal board.
+    public static DistanceTable load(Path file, Board goalBoard) throws IOException {
+        DistanceTable table = load(file);
+        if (!table.goalBoard.equals(goalBoard)) {
+            throw new IOException(file + " was built for a different goal board");
+        }
+        return table;
+    }
+
+    // Private helper method to reject boards that are not 3x3
+    private static void checkSize(Board board) {
+        if (board.getSize() != SIZE) {
+            throw new IllegalArgumentException("Distance tables are only available for 3x3 boards");
+        }
+    }
+}
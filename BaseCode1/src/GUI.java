@@ -4,22 +4,22 @@ import javax.swing.JPanel;
 import javax.swing.SwingConstants;
 import java.awt.Dimension;
 import java.awt.Font;
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 
 // A program that partially implements the 8 puzzle.
 public class GUI {
+    // The search algorithm used to find the solution (one of the SearchEngine values)
+    private static final SearchEngine ENGINE = SearchEngine.A_STAR;
+    // Frames drawn per second, the time of one move and the time the initial board is shown at least
+    private static final int FRAME_RATE = 30;
+    private static final int FRAMES_PER_MOVE = FRAME_RATE / 2;
+    private static final int INITIAL_FRAMES = 2 * FRAME_RATE;
+
     // The main method is the entry point where the program starts execution.
     public static void main(String[] args) {
-        // StdDraw setup
-        // -----------------------------------------------------------------------
-        // set the size of the canvas (the drawing area) in pixels
-        StdDraw.setCanvasSize(500, 500);
-        // set the range of both x and y values for the drawing canvas
-        StdDraw.setScale(0.5, 3.5);
-        // enable double buffering to animate moving the tiles on the board
-        StdDraw.enableDoubleBuffering();
-
-        // create the initial and goal boards for the 8 puzzle
+        // create the initial and goal boards for the 8 puzzle (any N x N arrangement works)
         int[][] initialTiles = {
         		{0, 1, 3},
                 {4, 2, 5},
@@ -31,45 +31,125 @@ public class GUI {
                 {7, 8, 0}
         };
 
+        // StdDraw setup: the renderer sets the canvas size and scale, with double buffering
+        // -----------------------------------------------------------------------
+        int size = initialTiles.length;
+        BoardRenderer renderer = new BoardRenderer(size);
+        renderer.setUpCanvas();
+
         // Show the initial state
         System.out.println("Initial State:");
         // if we want to create a random board we can basically use the Board() constructor
+        // (or InstanceGenerator for boards that are always solvable)
         Board initialBoard = new Board(initialTiles);
-        initialBoard.draw();
+        Board goalBoard = new Board(goalTiles);
+        renderer.drawAll(initialBoard);
+        renderer.drawStatus("Finding solution...");
         StdDraw.show();
-        StdDraw.pause(2000); // Pause for 2 seconds
 
-        // Find the solution
+        // Find the solution on a background thread (the producer), which hands over its progress and
+        // then the solution; the loop below (the consumer) draws them at a fixed frame rate meanwhile
         System.out.println("Finding solution...");
-        Board goalBoard = new Board(goalTiles);
-        List<Board> solutionPath = AStarSolver.solve(initialBoard, goalBoard);
+        AtomicReference<SearchMetrics> progress = new AtomicReference<>();
+        CompletableFuture<Solution> result = CompletableFuture.supplyAsync(
+                () -> ENGINE.search(initialBoard, goalBoard, new ManhattanHeuristic(goalBoard),
+                        metrics -> progress.set(metrics.copy())),
+                task -> {
+                    Thread solver = new Thread(task, "solver");
+                    solver.setDaemon(true);
+                    solver.start();
+                });
 
-        // Animate the solution
-        System.out.println("Animating solution...");
-        for (Board board : solutionPath) {
-            StdDraw.clear();
-            board.draw();
-            StdDraw.show();
-            StdDraw.pause(500); // Pause for 0.5 seconds between frames
+        Solution solution = animate(renderer, initialBoard, progress, result);
+        if (!solution.isSolved()) {
+            System.out.println("The initial board state is not solvable.");
         }
 
         // Display the solution in another window
-        displaySolution(solutionPath);
+        displaySolution(solution);
+    }
+
+    // Method to run the render loop until the solution is found and animated, returns the solution.
+    // Every frame shows what changed since the last one: the progress of the search while it runs,
+    // then the tiles of the solution sliding one move at a time.
+    private static Solution animate(BoardRenderer renderer, Board initialBoard,
+            AtomicReference<SearchMetrics> progress, CompletableFuture<Solution> result) {
+        long frameNanos = 1_000_000_000L / FRAME_RATE;
+        long nextFrame = System.nanoTime();
+        Board board = initialBoard.copy();
+        Solution solution = null;
+        int moveIndex = 0;
+        int moveFrame = 0; // frames of the current move shown so far
+        for (int frame = 0; ; frame++) {
+            boolean changed = false;
+            if (solution == null) {
+                SearchMetrics metrics = progress.getAndSet(null);
+                if (metrics != null) {
+                    renderer.drawStatus("Solving: " + metrics.getExpanded() + " nodes expanded, f = "
+                            + metrics.getFBound());
+                    changed = true;
+                }
+                if (result.isDone()) {
+                    solution = result.join();
+                    if (!solution.isSolved()) {
+                        renderer.drawStatus("The initial state is not solvable.");
+                        StdDraw.show();
+                        return solution;
+                    }
+                    System.out.println("Animating solution...");
+                    renderer.drawStatus("Solved in " + solution.getCost() + " moves");
+                    changed = true;
+                }
+            } else if (frame >= INITIAL_FRAMES) {
+                if (moveIndex == solution.getCost()) {
+                    return solution;
+                }
+                // the tile next to the empty cell in the direction of the move slides into it
+                int move = solution.getMove(moveIndex);
+                int emptyCell = board.getEmptyCell();
+                if (++moveFrame < FRAMES_PER_MOVE) {
+                    Board next = board.copy();
+                    next.applyMove(move);
+                    int tileCell = next.getEmptyCell();
+                    renderer.drawSliding(board.getTile(tileCell), tileCell, emptyCell,
+                            (double) moveFrame / FRAMES_PER_MOVE);
+                } else {
+                    board.applyMove(move);
+                    renderer.drawChanges(board);
+                    moveIndex++;
+                    moveFrame = 0;
+                    renderer.drawStatus("Move " + moveIndex + " of " + solution.getCost());
+                }
+                changed = true;
+            }
+            if (changed) {
+                StdDraw.show();
+            }
+
+            // wait for the next frame, skipping frames that are already late
+            nextFrame += frameNanos;
+            long wait = nextFrame - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            } else {
+                nextFrame = System.nanoTime();
+            }
+        }
     }
 
     // Method to display the solution in another window
-    private static void displaySolution(List<Board> solutionPath) {
+    private static void displaySolution(Solution solution) {
         JFrame frame = new JFrame("Solution");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 
         JPanel panel = new JPanel();
         JLabel label;
         
-        // Check if the solution path is empty (indicating the state is not solvable)
-        if (solutionPath.isEmpty()) {
+        // Check if a solution was found (otherwise the state is not solvable)
+        if (!solution.isSolved()) {
             label = new JLabel("The initial state is not solvable.");
         } else {
-            label = new JLabel(getSolutionString(solutionPath));
+            label = new JLabel(getSolutionString(solution));
         }
 
         label.setFont(new Font("Arial", Font.PLAIN, 20));
@@ -84,12 +164,12 @@ public class GUI {
     }
 
 
-    // Method to generate the solution string
-    private static String getSolutionString(List<Board> solutionPath) {
-        StringBuilder solution = new StringBuilder();
-        for (Board board : solutionPath) {
-            solution.append(board.getLastMove()).append(" ");
+    // Method to generate the solution string, the move labels separated by spaces
+    private static String getSolutionString(Solution solution) {
+        StringBuilder moves = new StringBuilder();
+        for (int i = 0; i < solution.getCost(); i++) {
+            moves.append(Board.moveLabel(solution.getMove(i))).append(" ");
         }
-        return solution.toString().trim();
+        return moves.toString().trim();
     }
 }
@@ -0,0 +1,15 @@
+// A heuristic estimates how many moves a board needs to reach the goal board it was built for.
+// Solvers only use admissible heuristics (estimates never above the real number of moves).
+// Implementations are bound to one goal board and are read-only once built, so they can be
+// shared between solves and threads.
+public interface Heuristic {
+    // Estimates the number of moves from the board to the goal board.
+    int estimate(Board board);
+
+    // Updates the estimate h of a board after tile slid from cell from into cell to
+    // (row-major cell indices). The board already shows the position after the move.
+    // The default recomputes the estimate, implementations override it with a cheaper update.
+    default int update(Board board, int h, int tile, int from, int to) {
+        return estimate(board);
+    }
+}
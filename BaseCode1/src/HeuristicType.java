@@ -0,0 +1,43 @@
+// The heuristics the solvers can use, each one creates its Heuristic for a given goal board.
+public enum HeuristicType {
+    // Sum of the Manhattan distances of the tiles
+    MANHATTAN {
+        @Override
+        public Heuristic create(Board goalBoard) {
+            return new ManhattanHeuristic(goalBoard);
+        }
+    },
+    // Number of tiles that are not in their goal cell
+    MISPLACED {
+        @Override
+        public Heuristic create(Board goalBoard) {
+            return new MisplacedTilesHeuristic(goalBoard);
+        }
+    },
+    // Manhattan distance plus two moves for every tile that has to leave its line to let another pass
+    LINEAR_CONFLICT {
+        @Override
+        public Heuristic create(Board goalBoard) {
+            return new LinearConflictHeuristic(goalBoard);
+        }
+    },
+    // Walking distance, the moves needed when only the rows (and the columns) of the tiles count
+    WALKING_DISTANCE {
+        @Override
+        public Heuristic create(Board goalBoard) {
+            return new WalkingDistanceHeuristic(goalBoard);
+        }
+    },
+    // Additive pattern databases, memory-mapped from the directory in the puzzle.pdb.dir system property
+    // (build them first with PatternDatabaseBuilder), the maximum over the goal symmetries if the
+    // puzzle.pdb.symmetric property is true
+    PATTERN_DATABASE {
+        @Override
+        public Heuristic create(Board goalBoard) {
+            return PatternDatabaseHeuristic.loadDefault(goalBoard);
+        }
+    };
+
+    // Creates the heuristic for the given goal board.
+    public abstract Heuristic create(Board goalBoard);
+}
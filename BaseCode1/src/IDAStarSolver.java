@@ -0,0 +1,152 @@
+import java.util.List;
+
+// Iterative-deepening A* solver, it works for boards of any size (the 24-puzzle included).
+// It runs depth-first searches bounded by f = g + h and raises the bound to the smallest
+// f-value that exceeded it until the goal is reached. Only one board is kept: every move is
+// applied to it in place and undone on the way back, so memory grows with the solution depth
+// only and not with the number of visited states.
+public class IDAStarSolver {
+    private static final int FOUND = -1; // Returned by search when the goal has been reached
+    private static final int STOPPED = -2; // Returned by search when a limit has been reached
+
+    private final Board board; // The single mutable board that is moved around
+    private final Board goalBoard;
+    private final Heuristic heuristic;
+    private int[] path; // path[depth] is the move made at that depth of the current branch
+    private int[][] legalMoves; // One move buffer per depth so recursion does not allocate
+    private final SearchMetrics metrics = new SearchMetrics(); // over all iterations, the open list is the path
+    private final SearchLimits limits;
+    private final SearchListener listener; // null for none
+    private int solutionLength; // Depth at which the goal was found
+    private Solution.Status stopStatus; // The limit that stopped the search
+
+    private IDAStarSolver(Board initialBoard, Board goalBoard, Heuristic heuristic, SearchLimits limits,
+            SearchListener listener) {
+        this.board = initialBoard.copy();
+        this.goalBoard = goalBoard;
+        this.heuristic = heuristic;
+        this.limits = limits;
+        this.listener = listener;
+        path = new int[32];
+        legalMoves = new int[32][4];
+    }
+
+    // Solves how to get the initial state to the final state with minimum moves,
+    // using memory linear in the length of the solution
+    public static List<Board> solve(Board initialBoard, Board goalBoard) {
+        return solve(initialBoard, goalBoard, new ManhattanHeuristic(goalBoard));
+    }
+
+    // Solves like solve(initialBoard, goalBoard), guided by the given heuristic (built for goalBoard)
+    public static List<Board> solve(Board initialBoard, Board goalBoard, Heuristic heuristic) {
+        return search(initialBoard, goalBoard, heuristic).toBoardList();
+    }
+
+    // Searches like solve and returns the moves with the metrics of the search
+    public static Solution search(Board initialBoard, Board goalBoard, Heuristic heuristic) {
+        return search(initialBoard, goalBoard, heuristic, null);
+    }
+
+    // Searches like solve, reporting progress to the listener (null for none)
+    public static Solution search(Board initialBoard, Board goalBoard, Heuristic heuristic, SearchListener listener) {
+        return search(initialBoard, goalBoard, heuristic, SearchLimits.NONE, listener);
+    }
+
+    // Searches like solve until the goal is reached or one of the limits is
+    public static Solution search(Board initialBoard, Board goalBoard, Heuristic heuristic, SearchLimits limits,
+            SearchListener listener) {
+        long start = System.nanoTime();
+        if (initialBoard.getSize() != goalBoard.getSize()) {
+            throw new IllegalArgumentException("The initial and goal boards must have the same size");
+        }
+        // Check if the initial board state is solvable
+        if (!initialBoard.isSolvable(goalBoard)) {
+            return Solution.unsolvable(initialBoard, new SearchMetrics(), start);
+        }
+
+        IDAStarSolver solver = new IDAStarSolver(initialBoard, goalBoard, heuristic, limits, listener);
+        int h = solver.heuristic.estimate(solver.board);
+        int bound = h;
+        while (true) {
+            int result = solver.search(0, h, bound, Board.NO_MOVE);
+            if (result == FOUND) {
+                return Solution.solved(initialBoard, solver.path, solver.solutionLength, solver.metrics, start);
+            }
+            if (result == STOPPED) {
+                return Solution.stopped(initialBoard, solver.stopStatus, solver.metrics, start);
+            }
+            if (result == Integer.MAX_VALUE) {
+                // the search space is exhausted
+                return Solution.unsolvable(initialBoard, solver.metrics, start);
+            }
+            bound = result;
+        }
+    }
+
+    // Depth-first search below the current board.
+    // Returns FOUND if the goal was reached within the bound, STOPPED if a limit was reached,
+    // otherwise the smallest f-value above the bound.
+    private int search(int g, int h, int bound, int previousMove) {
+        int f = g + h;
+        if (f > bound) {
+            return f;
+        }
+        if (board.isGoal(goalBoard)) {
+            solutionLength = g;
+            return FOUND;
+        }
+
+        stopStatus = limits.check(metrics.getExpanded());
+        if (stopStatus != null) {
+            return STOPPED;
+        }
+        metrics.expanded();
+        metrics.open(g + 1);
+        if (listener != null && metrics.getExpanded() % SearchMetrics.PROGRESS_INTERVAL == 0) {
+            metrics.fBound(bound);
+            listener.onProgress(metrics);
+        }
+        ensureDepth(g);
+        int[] moves = legalMoves[g];
+        int moveCount = board.getLegalMoves(moves);
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i < moveCount; i++) {
+            int move = moves[i];
+            // never undo the move that led here
+            if (previousMove != Board.NO_MOVE && move == Board.reverseMove(previousMove))
+                continue;
+
+            int emptyCell = board.getEmptyCell();
+            int tile = board.applyMove(move);
+            metrics.generated();
+            int newH = heuristic.update(board, h, tile, board.getEmptyCell(), emptyCell);
+
+            path[g] = move;
+            int result = search(g + 1, newH, bound, move);
+            board.undoMove(move);
+            if (result == FOUND || result == STOPPED) {
+                return result;
+            }
+            if (result < min) {
+                min = result;
+            }
+        }
+        return min;
+    }
+
+    // Private helper method to grow the per-depth buffers
+    private void ensureDepth(int depth) {
+        if (depth < path.length) {
+            return;
+        }
+        int[] grownPath = new int[path.length * 2];
+        System.arraycopy(path, 0, grownPath, 0, path.length);
+        int[][] grownMoves = new int[grownPath.length][];
+        System.arraycopy(legalMoves, 0, grownMoves, 0, legalMoves.length);
+        for (int i = legalMoves.length; i < grownMoves.length; i++) {
+            grownMoves[i] = new int[4];
+        }
+        path = grownPath;
+        legalMoves = grownMoves;
+    }
+}
@@ -0,0 +1,240 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+// Makes random puzzles for one goal board, for load tests and benchmarks.
+//
+// Every board made is solvable: the tiles are shuffled uniformly (Fisher-Yates) and, when the result
+// cannot reach the goal (Board.isSolvable), two tiles are swapped, which flips its parity. For 3x3
+// goals boards can also be picked at an exact optimal distance, uniformly among all boards at that
+// distance, from the DistanceTable of the goal.
+//
+// The streams are reproducible: board i of a stream only depends on the seed of the generator and
+// on i, with a SplittableRandom of its own, so parallel streams give the same boards as sequential
+// ones. The methods without a SplittableRandom use one per thread, split from the seed.
+//
+// Usage: java InstanceGenerator [--seed N] [--goal t,t,...] [--distance D | --distances MIN-MAX] <size> <count>
+// writes count boards, one per line in the input format of SolverCli, to stdout.
+public class InstanceGenerator {
+    private static final String USAGE = "Usage: java InstanceGenerator [--seed N] [--goal t,t,...]"
+            + " [--distance D | --distances MIN-MAX] <size> <count>";
+
+    private static final long SEED_STEP = 0x9E3779B97F4A7C15L; // seeds of consecutive boards of a stream
+
+    private final Board goalBoard;
+    private final int size;
+    private final long seed;
+    private final SplittableRandom root;
+    private final ThreadLocal<SplittableRandom> randoms = ThreadLocal.withInitial(this::split);
+    private volatile int[][] indicesByDistance; // 3x3 only: distance -> DistanceTable indices, made on first use
+
+    // Constructs a generator of boards that can reach the goal board.
+    public InstanceGenerator(Board goalBoard, long seed) {
+        this.goalBoard = goalBoard.copy();
+        this.size = goalBoard.getSize();
+        this.seed = seed;
+        this.root = new SplittableRandom(seed);
+    }
+
+    public static void main(String[] args) {
+        long seed = System.nanoTime();
+        Board goalBoard = null;
+        int minDistance = -1;
+        int maxDistance = -1;
+        int size = 0;
+        long count = 0;
+        try {
+            List<String> operands = new ArrayList<>();
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--seed":
+                        seed = Long.parseLong(args[++i]);
+                        break;
+                    case "--goal":
+                        goalBoard = Board.parse(args[++i]);
+                        break;
+                    case "--distance":
+                        minDistance = maxDistance = Integer.parseInt(args[++i]);
+                        break;
+                    case "--distances":
+                        String[] range = args[++i].split("-");
+                        if (range.length != 2) {
+                            throw new IllegalArgumentException("Expected a distance range MIN-MAX, got " + args[i]);
+                        }
+                        minDistance = Integer.parseInt(range[0]);
+                        maxDistance = Integer.parseInt(range[1]);
+                        break;
+                    default:
+                        if (args[i].startsWith("--")) {
+                            throw new IllegalArgumentException("Unknown option " + args[i]);
+                        }
+                        operands.add(args[i]);
+                }
+            }
+            if (operands.size() != 2) {
+                throw new IllegalArgumentException("Expected a size and a count");
+            }
+            size = Integer.parseInt(operands.get(0));
+            count = Long.parseLong(operands.get(1));
+            if (goalBoard == null) {
+                goalBoard = Board.standardGoal(size);
+            } else if (goalBoard.getSize() != size) {
+                throw new IllegalArgumentException("The goal is not a " + size + "x" + size + " board");
+            }
+            if (minDistance >= 0 && size != 3) {
+                throw new IllegalArgumentException("Boards at an exact distance are only available for 3x3 goals");
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            System.err.println(e instanceof ArrayIndexOutOfBoundsException ? "Missing option value" : e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        InstanceGenerator generator = new InstanceGenerator(goalBoard, seed);
+        Stream<Board> boards = minDistance < 0 ? generator.solvable(count)
+                : generator.atDistances(minDistance, maxDistance, count);
+        StringBuilder line = new StringBuilder();
+        boards.forEachOrdered(board -> {
+            line.setLength(0);
+            for (int cell = 0; cell < board.getSize() * board.getSize(); cell++) {
+                if (cell > 0) {
+                    line.append(',');
+                }
+                line.append(board.getTile(cell));
+            }
+            System.out.println(line);
+        });
+    }
+
+    // Gets the goal board of the boards made.
+    public Board getGoalBoard() {
+        return goalBoard.copy();
+    }
+
+    // Methods for single boards
+
+    // Makes a random board that can reach the goal, with the random generator of this thread.
+    public Board solvable() {
+        return solvable(randoms.get());
+    }
+
+    // Makes a random board that can reach the goal: every such board is equally likely.
+    public Board solvable(SplittableRandom random) {
+        int[] cells = new int[size * size];
+        for (int i = 0; i < cells.length; i++) {
+            int j = random.nextInt(i + 1);
+            cells[i] = cells[j];
+            cells[j] = i;
+        }
+        Board board = toBoard(cells);
+        if (!board.isSolvable(goalBoard)) {
+            // swap the first two tiles, leaving the empty cell where it is, which flips the parity
+            int first = cells[0] != 0 ? 0 : 1;
+            int second = cells[first + 1] != 0 ? first + 1 : first + 2;
+            int tile = cells[first];
+            cells[first] = cells[second];
+            cells[second] = tile;
+            board = toBoard(cells);
+        }
+        return board;
+    }
+
+    // Makes a random 3x3 board at the given optimal distance from the goal, with the random generator of this thread.
+    public Board atDistance(int distance) {
+        return atDistance(distance, randoms.get());
+    }
+
+    // Makes a random 3x3 board at the given optimal distance from the goal: every board at that distance
+    // is equally likely. Throws IllegalArgumentException for other sizes and distances no board has.
+    public Board atDistance(int distance, SplittableRandom random) {
+        int[][] byDistance = getIndicesByDistance();
+        if (distance < 0 || distance >= byDistance.length) {
+            throw new IllegalArgumentException("Boards are 0 to " + (byDistance.length - 1)
+                    + " moves from the goal, not " + distance);
+        }
+        int[] indices = byDistance[distance];
+        long state = DistanceTable.forGoal(goalBoard).getState(indices[random.nextInt(indices.length)]);
+        return new Board(Board.unpack(state, size));
+    }
+
+    // Gets the greatest optimal distance from the goal of a 3x3 board.
+    public int getMaxDistance() {
+        return getIndicesByDistance().length - 1;
+    }
+
+    // Methods for streams of boards
+
+    // Gets count random boards that can reach the goal, board i made from the seed and i only.
+    public Stream<Board> solvable(long count) {
+        return LongStream.range(0, count).mapToObj(i -> solvable(randomOf(i)));
+    }
+
+    // Gets count random 3x3 boards at the given optimal distance, board i made from the seed and i only.
+    public Stream<Board> atDistance(int distance, long count) {
+        getIndicesByDistance();
+        return LongStream.range(0, count).mapToObj(i -> atDistance(distance, randomOf(i)));
+    }
+
+    // Gets count random 3x3 boards in buckets of difficulty: board i is at the optimal distance
+    // minDistance + i % (maxDistance - minDistance + 1), so every distance of the range gets the same share.
+    public Stream<Board> atDistances(int minDistance, int maxDistance, long count) {
+        if (minDistance > maxDistance) {
+            throw new IllegalArgumentException("Empty distance range " + minDistance + "-" + maxDistance);
+        }
+        getIndicesByDistance();
+        int distances = maxDistance - minDistance + 1;
+        return LongStream.range(0, count)
+                .mapToObj(i -> atDistance(minDistance + (int) (i % distances), randomOf(i)));
+    }
+
+    // Private helper methods
+
+    // The random generator of board i of a stream
+    private SplittableRandom randomOf(long index) {
+        return new SplittableRandom(seed + (index + 1) * SEED_STEP);
+    }
+
+    // A new random generator for a thread
+    private synchronized SplittableRandom split() {
+        return root.split();
+    }
+
+    // The DistanceTable indices of the boards at every distance, made on first use
+    private int[][] getIndicesByDistance() {
+        int[][] byDistance = indicesByDistance;
+        if (byDistance == null) {
+            if (size != 3) {
+                throw new IllegalArgumentException("Boards at an exact distance are only available for 3x3 goals");
+            }
+            DistanceTable table = DistanceTable.forGoal(goalBoard);
+            int[] distances = new int[DistanceTable.STATES];
+            int[] counts = new int[64];
+            int maxDistance = 0;
+            for (int index = 0; index < DistanceTable.STATES; index++) {
+                distances[index] = table.getDistance(table.getState(index));
+                counts[distances[index]]++;
+                maxDistance = Math.max(maxDistance, distances[index]);
+            }
+            byDistance = new int[maxDistance + 1][];
+            for (int distance = 0; distance <= maxDistance; distance++) {
+                byDistance[distance] = new int[counts[distance]];
+                counts[distance] = 0;
+            }
+            for (int index = 0; index < DistanceTable.STATES; index++) {
+                byDistance[distances[index]][counts[distances[index]]++] = index;
+            }
+            indicesByDistance = byDistance;
+        }
+        return byDistance;
+    }
+
+    private Board toBoard(int[] cells) {
+        int[][] tiles = new int[size][size];
+        for (int cell = 0; cell < cells.length; cell++) {
+            tiles[cell / size][cell % size] = cells[cell];
+        }
+        return new Board(tiles);
+    }
+}
@@ -0,0 +1,109 @@
+// The Manhattan distance plus linear conflicts.
+// Two tiles are in linear conflict when they are in their goal row (or column) but in the wrong
+// order, so one of them has to leave the line and come back, which costs two moves the Manhattan
+// distance does not count. For every line the fewest tiles that have to leave is the number of
+// goal-line tiles minus the longest run of them that is already in increasing goal order.
+public class LinearConflictHeuristic implements Heuristic {
+    private final int size; // Number of rows (and columns) of the boards
+    private final ManhattanHeuristic manhattan;
+    private final int[] goalRow; // goalRow[tile] is the row of the tile on the goal board
+    private final int[] goalCol; // goalCol[tile] is the column of the tile on the goal board
+
+    // Builds the heuristic for the given goal board.
+    public LinearConflictHeuristic(Board goalBoard) {
+        size = goalBoard.getSize();
+        if (size > 15) {
+            throw new IllegalArgumentException("Linear conflicts are supported for boards up to 15x15");
+        }
+        manhattan = new ManhattanHeuristic(goalBoard);
+        goalRow = new int[size * size];
+        goalCol = new int[size * size];
+        for (int cell = 0; cell < size * size; cell++) {
+            goalRow[goalBoard.getTile(cell)] = cell / size;
+            goalCol[goalBoard.getTile(cell)] = cell % size;
+        }
+    }
+
+    @Override
+    public int estimate(Board board) {
+        int conflicts = 0;
+        for (int line = 0; line < size; line++) {
+            conflicts += rowConflicts(board, line, -1, -1) + columnConflicts(board, line, -1, -1);
+        }
+        return manhattan.estimate(board) + 2 * conflicts;
+    }
+
+    // A vertical move only changes the two rows involved and a horizontal move the two columns,
+    // the tile order along the other lines stays the same.
+    @Override
+    public int update(Board board, int h, int tile, int from, int to) {
+        int delta = 0;
+        if (from / size != to / size) {
+            delta += rowConflicts(board, from / size, -1, -1) - rowConflicts(board, from / size, from, to);
+            delta += rowConflicts(board, to / size, -1, -1) - rowConflicts(board, to / size, from, to);
+        } else {
+            delta += columnConflicts(board, from % size, -1, -1) - columnConflicts(board, from % size, from, to);
+            delta += columnConflicts(board, to % size, -1, -1) - columnConflicts(board, to % size, from, to);
+        }
+        return manhattan.update(h, tile, from, to) + 2 * delta;
+    }
+
+    // Private helper methods to count the tiles that have to leave a line.
+    // When from is not -1 the move from -> to is looked at undone: the tile in cell to is read from cell from.
+
+    private int rowConflicts(Board board, int row, int from, int to) {
+        long tails = 0; // patience sorting piles of the longest increasing run, 4 bits per pile
+        int piles = 0;
+        int inLine = 0;
+        for (int col = 0; col < size; col++) {
+            int tile = tileAt(board, row * size + col, from, to);
+            if (tile != 0 && goalRow[tile] == row) {
+                inLine++;
+                int pile = findPile(tails, piles, goalCol[tile]);
+                tails = Board.setCell(tails, pile, goalCol[tile]);
+                if (pile == piles) {
+                    piles++;
+                }
+            }
+        }
+        return inLine - piles;
+    }
+
+    private int columnConflicts(Board board, int col, int from, int to) {
+        long tails = 0;
+        int piles = 0;
+        int inLine = 0;
+        for (int row = 0; row < size; row++) {
+            int tile = tileAt(board, row * size + col, from, to);
+            if (tile != 0 && goalCol[tile] == col) {
+                inLine++;
+                int pile = findPile(tails, piles, goalRow[tile]);
+                tails = Board.setCell(tails, pile, goalRow[tile]);
+                if (pile == piles) {
+                    piles++;
+                }
+            }
+        }
+        return inLine - piles;
+    }
+
+    // Private helper method for the first pile whose top is not below value
+    private static int findPile(long tails, int piles, int value) {
+        int pile = 0;
+        while (pile < piles && Board.getCell(tails, pile) < value) {
+            pile++;
+        }
+        return pile;
+    }
+
+    // Private helper method to read a cell, optionally as it was before the move from -> to
+    private static int tileAt(Board board, int cell, int from, int to) {
+        if (cell == from) {
+            return board.getTile(to);
+        }
+        if (cell == to) {
+            return 0;
+        }
+        return board.getTile(cell);
+    }
+}
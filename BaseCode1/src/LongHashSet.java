@@ -0,0 +1,78 @@
+// A set of packed board states that stores the longs directly in an open-addressing table.
+// Unlike HashSet<Long> it does not box its keys, so adding a state allocates nothing
+// except when the table grows. The value 0 is reserved as the empty slot marker, which is
+// safe because a packed board always contains non-zero tiles.
+public class LongHashSet {
+    private static final double MAX_LOAD = 0.6;
+
+    private long[] keys; // 0 marks an empty slot
+    private int mask; // keys.length - 1, the capacity is always a power of two
+    private int size; // Number of states in the set
+
+    // Constructs an empty set.
+    public LongHashSet() {
+        this(1 << 10);
+    }
+
+    // Constructs an empty set with room for about the given number of states.
+    public LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / MAX_LOAD)) - 1) << 1;
+        keys = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    // Gets the number of states in the set.
+    public int size() {
+        return size;
+    }
+
+    // Checks if the given state is in the set.
+    public boolean contains(long key) {
+        int slot = slot(key, mask);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    // Adds the given state, returns false if it was already in the set.
+    public boolean add(long key) {
+        int slot = slot(key, mask);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        if (++size > keys.length * MAX_LOAD) {
+            grow();
+        }
+        return true;
+    }
+
+    // Spreads the bits of a packed state over the table (Fibonacci hashing, folded so large tables use all 64 bits).
+    static int slot(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    // Private helper method to double the table
+    private void grow() {
+        long[] oldKeys = keys;
+        keys = new long[oldKeys.length * 2];
+        mask = keys.length - 1;
+        for (long key : oldKeys) {
+            if (key != 0) {
+                int slot = slot(key, mask);
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+// A map from long keys to int values in an open-addressing table, so lookups do not box the key.
+// The key 0 is reserved as the empty slot marker and get returns -1 for missing keys,
+// which suits the non-negative distances stored in it.
+public class LongIntMap {
+    private static final double MAX_LOAD = 0.6;
+
+    private long[] keys; // 0 marks an empty slot
+    private int[] values; // values[i] is the value stored for keys[i]
+    private int mask; // keys.length - 1, the capacity is always a power of two
+    private int size; // Number of entries in the map
+
+    // Constructs an empty map.
+    public LongIntMap() {
+        keys = new long[1 << 10];
+        values = new int[keys.length];
+        mask = keys.length - 1;
+    }
+
+    // Gets the number of entries in the map.
+    public int size() {
+        return size;
+    }
+
+    // Gets the value stored for the key, or -1 if there is none.
+    public int get(long key) {
+        int slot = LongHashSet.slot(key, mask);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    // Stores the value for the key, replacing any previous one.
+    public void put(long key, int value) {
+        int slot = LongHashSet.slot(key, mask);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > keys.length * MAX_LOAD) {
+            grow();
+        }
+    }
+
+    // Private helper method to double the table
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[keys.length];
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = LongHashSet.slot(oldKeys[i], mask);
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+import java.util.concurrent.ConcurrentHashMap;
+
+// The Manhattan distance heuristic for one goal board.
+// The distance of every tile from every cell to its goal cell is computed once, so a full estimate
+// is one table lookup per cell and the estimate of a neighbor is updated from the moved tile only.
+// The table is read-only after construction, so one instance can be shared by any number of solves.
+public class ManhattanHeuristic implements Heuristic {
+    private static final ConcurrentHashMap<Board, ManhattanHeuristic> heuristics = new ConcurrentHashMap<>();
+
+    private final int size; // Number of rows (and columns) of the boards
+    private final int[][] distance; // distance[tile][cell] is the Manhattan distance of tile at cell to its goal cell
+
+    // Builds the distance table for the given goal board.
+    public ManhattanHeuristic(Board goalBoard) {
+        size = goalBoard.getSize();
+        int cells = size * size;
+        distance = new int[cells][cells];
+        for (int goalCell = 0; goalCell < cells; goalCell++) {
+            int tile = goalBoard.getTile(goalCell);
+            if (tile == 0) {
+                continue; // the empty cell does not count
+            }
+            for (int cell = 0; cell < cells; cell++) {
+                distance[tile][cell] = Math.abs(cell / size - goalCell / size) + Math.abs(cell % size - goalCell % size);
+            }
+        }
+    }
+
+    // Gets the shared heuristic of a goal board, building it on first use.
+    // The goal is copied into the cache, so it may change afterwards.
+    public static ManhattanHeuristic forGoal(Board goalBoard) {
+        ManhattanHeuristic heuristic = heuristics.get(goalBoard);
+        if (heuristic == null) {
+            heuristic = heuristics.computeIfAbsent(goalBoard.copy(), ManhattanHeuristic::new);
+        }
+        return heuristic;
+    }
+
+    // Calculates the Manhattan distance of the whole board.
+    @Override
+    public int estimate(Board board) {
+        int h = 0;
+        int cells = size * size;
+        for (int cell = 0; cell < cells; cell++) {
+            h += distance[board.getTile(cell)][cell];
+        }
+        return h;
+    }
+
+    // Updates an estimate after tile slid from cell from into cell to.
+    @Override
+    public int update(Board board, int h, int tile, int from, int to) {
+        return update(h, tile, from, to);
+    }
+
+    // Updates an estimate after tile slid from cell from into cell to, without needing the board.
+    public int update(int h, int tile, int from, int to) {
+        return h - distance[tile][from] + distance[tile][to];
+    }
+
+    // Gets the Manhattan distance of tile at cell to its goal cell.
+    public int distance(int tile, int cell) {
+        return distance[tile][cell];
+    }
+}
@@ -0,0 +1,37 @@
+// The misplaced tiles heuristic: the number of tiles (the empty cell not included) that are not
+// in their goal cell. Weaker than the Manhattan distance but very cheap.
+public class MisplacedTilesHeuristic implements Heuristic {
+    private final int size; // Number of rows (and columns) of the boards
+    private final int[] goalCell; // goalCell[tile] is the cell of the tile on the goal board
+
+    // Builds the heuristic for the given goal board.
+    public MisplacedTilesHeuristic(Board goalBoard) {
+        size = goalBoard.getSize();
+        goalCell = new int[size * size];
+        for (int cell = 0; cell < size * size; cell++) {
+            goalCell[goalBoard.getTile(cell)] = cell;
+        }
+    }
+
+    @Override
+    public int estimate(Board board) {
+        int misplaced = 0;
+        for (int cell = 0; cell < size * size; cell++) {
+            int tile = board.getTile(cell);
+            if (tile != 0 && goalCell[tile] != cell) {
+                misplaced++;
+            }
+        }
+        return misplaced;
+    }
+
+    @Override
+    public int update(Board board, int h, int tile, int from, int to) {
+        return h - misplaced(tile, from) + misplaced(tile, to);
+    }
+
+    // Private helper method, 1 if the tile is out of place in the cell
+    private int misplaced(int tile, int cell) {
+        return goalCell[tile] == cell ? 0 : 1;
+    }
+}
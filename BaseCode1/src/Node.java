@@ -1,20 +1,30 @@
+// A search record of the A* solver. It only keeps the packed board state and the move
+// that produced it; boards are rebuilt from the states once the solution has been found.
 public class Node implements Comparable<Node> {
-    private Board board;
+    private long state; // Packed board state (see Board.getPacked)
     private Node parent;
     private int gValue; // Cost from start to current node
     private int hValue; // Heuristic value (Manhattan distance to goal)
-    private String move; // Move made to reach this state from the parent state
+    private int move; // Move code made to reach this state from the parent state (Board.NO_MOVE for the root)
+    private int heapIndex = -1; // Position of this node in the open list heap, -1 if not in it
 
-    public Node(Board board, Node parent, int gValue, int hValue) {
-        this.board = board;
+    public Node(long state, Node parent, int gValue, int hValue, int move) {
+        this.state = state;
         this.parent = parent;
         this.gValue = gValue;
         this.hValue = hValue;
+        this.move = move;
     }
 
     // Getters and setters
-    public Board getBoard() {
-        return board;
+
+    // Gets the packed state of the board, used (or its canonical form) as the key of the open and closed lists
+    public long getState() {
+        return state;
+    }
+
+    public void setState(long state) {
+        this.state = state;
     }
 
     public Node getParent() {
@@ -37,11 +47,11 @@ public class Node implements Comparable<Node> {
         this.hValue = hValue;
     }
 
-    public String getMove() {
+    public int getMove() {
         return move;
     }
 
-    public void setMove(String move) {
+    public void setMove(int move) {
         this.move = move;
     }
 
@@ -49,6 +59,14 @@ public class Node implements Comparable<Node> {
         this.parent = parent;
     }
 
+    public int getHeapIndex() {
+        return heapIndex;
+    }
+
+    public void setHeapIndex(int heapIndex) {
+        this.heapIndex = heapIndex;
+    }
+
     // Calculate the total cost (fValue)
     public int getFValue() {
         return gValue + hValue;
@@ -57,6 +75,11 @@ public class Node implements Comparable<Node> {
     // Implement compareTo method for priority queue ordering
     @Override
     public int compareTo(Node other) {
-        return Integer.compare(this.getFValue(), other.getFValue());
+        int byF = Integer.compare(this.getFValue(), other.getFValue());
+        if (byF != 0) {
+            return byF;
+        }
+        // prefer the node closer to the goal when f-values are equal
+        return Integer.compare(this.hValue, other.hValue);
     }
 }
\ No newline at end of file
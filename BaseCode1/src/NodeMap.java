@@ -0,0 +1,97 @@
+// A map from packed board state to search node, stored in an open-addressing table so that
+// lookups do not box the key. Used as the index of the open list.
+// The value 0 is reserved as the empty slot marker (see LongHashSet).
+public class NodeMap {
+    private static final double MAX_LOAD = 0.6;
+
+    private long[] keys; // 0 marks an empty slot
+    private Node[] values; // values[i] is the node stored for keys[i]
+    private int mask; // keys.length - 1, the capacity is always a power of two
+    private int size; // Number of entries in the map
+
+    // Constructs an empty map.
+    public NodeMap() {
+        keys = new long[1 << 10];
+        values = new Node[keys.length];
+        mask = keys.length - 1;
+    }
+
+    // Gets the number of entries in the map.
+    public int size() {
+        return size;
+    }
+
+    // Gets the node stored for the given state, or null if there is none.
+    public Node get(long key) {
+        int slot = LongHashSet.slot(key, mask);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    // Stores the node for the given state, replacing any previous one.
+    public void put(long key, Node node) {
+        int slot = LongHashSet.slot(key, mask);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                values[slot] = node;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = node;
+        if (++size > keys.length * MAX_LOAD) {
+            grow();
+        }
+    }
+
+    // Removes the entry for the given state if there is one.
+    public void remove(long key) {
+        int slot = LongHashSet.slot(key, mask);
+        while (keys[slot] != key) {
+            if (keys[slot] == 0) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        // backward-shift deletion keeps every probe sequence unbroken without tombstones
+        int hole = slot;
+        slot = (slot + 1) & mask;
+        while (keys[slot] != 0) {
+            int home = LongHashSet.slot(keys[slot], mask);
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                keys[hole] = keys[slot];
+                values[hole] = values[slot];
+                hole = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[hole] = 0;
+        values[hole] = null;
+        size--;
+    }
+
+    // Private helper method to double the table
+    private void grow() {
+        long[] oldKeys = keys;
+        Node[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new Node[keys.length];
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = LongHashSet.slot(oldKeys[i], mask);
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
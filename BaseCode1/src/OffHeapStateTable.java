@@ -0,0 +1,248 @@
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+
+// A hash table of board states in direct (off-heap) memory, for A* searches with too many states
+// for Node objects on the heap (see AStarSolver.searchOffHeap).
+//
+// A slot is one long: the rank of the state among the permutations of its tiles (under 16!, so 45
+// bits), its g-value, the move that reached it and a closed flag. A state does not keep a pointer
+// to its parent: undoing its move gives the parent state, which is looked up in turn. Ranking a
+// state and turning a rank back into the state take one pass over the cells each.
+//
+// The table grows by a quarter of its capacity when it is 4/5 full, up to the capacity for the
+// maximum number of states given to it; once that is reached, or the JVM runs out of direct memory
+// (-XX:MaxDirectMemorySize), it is full. Between growths the load is 16/25 to 4/5, 10 to 12.5 bytes
+// per state, and a full table of n states takes 10n bytes. While the states move to the larger table
+// both are alive, 22.5 bytes per state at that moment. The garbage collector never sees any of it.
+// Slots are identified by int indices, valid until the table grows.
+public class OffHeapStateTable {
+    public static final int NO_SLOT = -1;
+    public static final int UNREACHED = 0xFF; // the g-value of a state that was added but not reached yet
+    public static final long MAX_STATES = (1L << 31) / 5 * 4; // the most a table can hold, about 1.7 billion
+
+    private static final int MIN_CAPACITY = 1 << 12;
+    private static final int CHUNK_BITS = 27; // slots per buffer, so one buffer stays under 2 GB
+    private static final int G_SHIFT = 48;
+    private static final int MOVE_SHIFT = 56;
+    private static final long CLOSED_BIT = 1L << 58;
+    private static final long KEY_BITS = (1L << G_SHIFT) - 1; // the rank plus one, 0 marks an empty slot
+
+    private final int boardSize;
+    private final int cells;
+    private final long maxCapacity; // the capacity this table may grow to
+    private final long capacity;
+    private final LongBuffer[] words; // per chunk: rank + 1 | g << G_SHIFT | move << MOVE_SHIFT | closed bit
+    private long size;
+
+    // Constructs an empty table for boards of the given size that holds maxStates states.
+    // Memory is taken as the table grows, the first allocation is small.
+    public OffHeapStateTable(int boardSize, long maxStates) {
+        this(boardSize, capacityFor(maxStates), MIN_CAPACITY);
+        if (boardSize > Board.MAX_PACKED_SIZE) {
+            throw new IllegalArgumentException("Boards up to " + Board.MAX_PACKED_SIZE + "x" + Board.MAX_PACKED_SIZE
+                    + " have a packed encoding, this one is " + boardSize + "x" + boardSize);
+        }
+    }
+
+    private OffHeapStateTable(int boardSize, long maxCapacity, long capacity) {
+        this.boardSize = boardSize;
+        this.cells = boardSize * boardSize;
+        this.maxCapacity = maxCapacity;
+        this.capacity = Math.min(capacity, maxCapacity);
+        int chunks = (int) ((this.capacity + (1L << CHUNK_BITS) - 1) >>> CHUNK_BITS);
+        words = new LongBuffer[chunks];
+        for (int i = 0; i < chunks; i++) {
+            int chunkSlots = (int) Math.min(this.capacity - ((long) i << CHUNK_BITS), 1L << CHUNK_BITS);
+            words[i] = ByteBuffer.allocateDirect(chunkSlots * Long.BYTES).asLongBuffer();
+        }
+    }
+
+    // Private helper method for the capacity that holds maxStates at the maximum load
+    private static long capacityFor(long maxStates) {
+        if (maxStates < 1 || maxStates > MAX_STATES) {
+            throw new IllegalArgumentException("maxStates must be between 1 and " + MAX_STATES + ", got " + maxStates);
+        }
+        return Math.max(MIN_CAPACITY, (maxStates * 5 + 3) / 4);
+    }
+
+    // Gets the number of states in the table.
+    public long size() {
+        return size;
+    }
+
+    // Gets the number of slots.
+    public long getCapacity() {
+        return capacity;
+    }
+
+    // Gets the direct memory the table takes.
+    public long getBytes() {
+        return capacity * Long.BYTES;
+    }
+
+    // Gets the slot of a state, or NO_SLOT if it is not in the table.
+    public int find(long state) {
+        return findKey(rank(state) + 1);
+    }
+
+    // Gets the slot in this table of the state in a slot of another table for the same boards, or
+    // NO_SLOT if it is not in this one. Unlike find(other.getState(slot)) the state is not unranked.
+    public int find(OffHeapStateTable other, int otherSlot) {
+        return findKey(other.word(otherSlot) & KEY_BITS);
+    }
+
+    // Gets the slot of a state, adding it with the g-value UNREACHED if it is not in the table yet.
+    // Returns NO_SLOT if the state is new and the table is too full to take it: see grown.
+    public int add(long state) {
+        long key = rank(state) + 1;
+        long slot = home(key);
+        long word;
+        while ((word = word(slot)) != 0) {
+            if ((word & KEY_BITS) == key) {
+                return (int) slot;
+            }
+            slot = next(slot);
+        }
+        if (size * 5 >= capacity * 4) {
+            return NO_SLOT;
+        }
+        setWord(slot, key | (long) UNREACHED << G_SHIFT);
+        size++;
+        return (int) slot;
+    }
+
+    // Gets a table with a quarter more slots and the same states (at other slots), or null if this
+    // table is at its maximum capacity or there is not enough direct memory for a larger one.
+    public OffHeapStateTable grown() {
+        if (capacity >= maxCapacity) {
+            return null;
+        }
+        OffHeapStateTable larger;
+        try {
+            larger = new OffHeapStateTable(boardSize, maxCapacity, capacity + capacity / 4);
+        } catch (OutOfMemoryError e) {
+            return null; // the direct memory limit, the heap is fine
+        }
+        for (long slot = 0; slot < capacity; slot++) {
+            long word = word(slot);
+            if (word != 0) {
+                long target = larger.home(word & KEY_BITS);
+                while (larger.word(target) != 0) {
+                    target = larger.next(target);
+                }
+                larger.setWord(target, word);
+            }
+        }
+        larger.size = size;
+        return larger;
+    }
+
+    // Getters and setters of a slot
+
+    // Gets the packed state in a slot.
+    public long getState(int slot) {
+        return unrank((word(slot) & KEY_BITS) - 1);
+    }
+
+    public int getG(int slot) {
+        return (int) (word(slot) >>> G_SHIFT) & 0xFF;
+    }
+
+    // Sets the g-value of a slot, which must be below UNREACHED.
+    public void setG(int slot, int g) {
+        long word = word(slot);
+        setWord(slot, (word & ~(0xFFL << G_SHIFT)) | (long) g << G_SHIFT);
+    }
+
+    // Gets the move that reached the state of a slot (meaningless for the initial state).
+    public int getMove(int slot) {
+        return (int) (word(slot) >>> MOVE_SHIFT) & 3;
+    }
+
+    public void setMove(int slot, int move) {
+        long word = word(slot);
+        setWord(slot, (word & ~(3L << MOVE_SHIFT)) | (long) move << MOVE_SHIFT);
+    }
+
+    public boolean isClosed(int slot) {
+        return (word(slot) & CLOSED_BIT) != 0;
+    }
+
+    public void setClosed(int slot, boolean closed) {
+        long word = word(slot);
+        setWord(slot, closed ? word | CLOSED_BIT : word & ~CLOSED_BIT);
+    }
+
+    // Private helper methods for the ranks of the states
+
+    // The rank of a packed state among the orders of its tiles (Lehmer code, cell 0 most significant)
+    private long rank(long state) {
+        long rank = 0;
+        int used = 0;
+        for (int cell = 0; cell < cells - 1; cell++) {
+            int tile = (int) (state >>> (4 * cell)) & 0xF;
+            rank = rank * (cells - cell) + tile - Integer.bitCount(used & ((1 << tile) - 1));
+            used |= 1 << tile;
+        }
+        return rank;
+    }
+
+    // The packed state of a rank, the inverse of rank
+    private long unrank(long rank) {
+        long digits = 0; // the digit of every cell, 4 bits each
+        for (int cell = cells - 2; cell >= 0; cell--) {
+            digits |= (rank % (cells - cell)) << (4 * cell);
+            rank /= cells - cell;
+        }
+        int free = (1 << cells) - 1;
+        long state = 0;
+        for (int cell = 0; cell < cells - 1; cell++) {
+            // the tile is the digit-th smallest one not placed yet
+            int remaining = free;
+            for (int skip = (int) (digits >>> (4 * cell)) & 0xF; skip > 0; skip--) {
+                remaining &= remaining - 1;
+            }
+            int tile = Integer.numberOfTrailingZeros(remaining);
+            free &= ~(1 << tile);
+            state |= (long) tile << (4 * cell);
+        }
+        return state | (long) Integer.numberOfTrailingZeros(free) << (4 * (cells - 1));
+    }
+
+    // Private helper methods for the slots
+
+    private int findKey(long key) {
+        long slot = home(key);
+        long word;
+        while ((word = word(slot)) != 0) {
+            if ((word & KEY_BITS) == key) {
+                return (int) slot;
+            }
+            slot = next(slot);
+        }
+        return NO_SLOT;
+    }
+
+    // The first slot to probe for a key: the high bits of its hash scaled to the capacity, which need
+    // not be a power of two
+    private long home(long key) {
+        return Math.multiplyHigh((key * 0x9E3779B97F4A7C15L) >>> 1, capacity << 1);
+    }
+
+    private long next(long slot) {
+        return slot + 1 == capacity ? 0 : slot + 1;
+    }
+
+    private long word(long slot) {
+        return words[(int) (slot >>> CHUNK_BITS)].get((int) (slot & ((1 << CHUNK_BITS) - 1)));
+    }
+
+    private void setWord(long slot, long word) {
+        words[(int) (slot >>> CHUNK_BITS)].put((int) (slot & ((1 << CHUNK_BITS) - 1)), word);
+    }
+
+    @Override
+    public String toString() {
+        return "OffHeapStateTable[" + size + "/" + capacity + " slots, " + getBytes() / (1 << 20) + " MB]";
+    }
+}
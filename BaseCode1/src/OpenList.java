@@ -0,0 +1,169 @@
+// The open list of the A* search.
+// It is a binary min-heap of nodes ordered by f-value (ties broken by the smaller h-value),
+// together with a map from packed board state to node so that membership tests are O(1)
+// and a node whose cost improves can be moved up the heap in O(log n).
+// With a BoardSymmetry the map is keyed by canonical state, so twins of a board share one node.
+// With a weight w other than 1 the nodes are ordered by g + w * h instead (weighted A*).
+public class OpenList {
+    private Node[] heap; // heap[0] is the node with the smallest f-value
+    private int size; // Number of nodes currently in the heap
+    private final NodeMap index; // packed (canonical) state -> node in the heap
+    private final BoardSymmetry symmetry; // null when states are their own keys
+    private double weight = 1; // of the h-value in the order
+
+    // Constructs an empty open list.
+    public OpenList() {
+        this(null);
+    }
+
+    // Constructs an empty open list keyed by the canonical states of the given symmetry group.
+    public OpenList(BoardSymmetry symmetry) {
+        heap = new Node[64];
+        index = new NodeMap();
+        this.symmetry = symmetry;
+    }
+
+    // Checks if the open list is empty.
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Gets the number of nodes in the open list.
+    public int size() {
+        return size;
+    }
+
+    // Checks if a node for the given packed state (or a twin of it) is in the open list.
+    public boolean contains(long state) {
+        return get(state) != null;
+    }
+
+    // Gets the node for the given packed state (or a twin of it), or null if it is not in the open list.
+    public Node get(long state) {
+        return index.get(key(state));
+    }
+
+    // Adds a new node to the open list.
+    public void add(Node node) {
+        if (size == heap.length) {
+            Node[] grown = new Node[size * 2];
+            System.arraycopy(heap, 0, grown, 0, size);
+            heap = grown;
+        }
+        heap[size] = node;
+        node.setHeapIndex(size);
+        size++;
+        index.put(key(node.getState()), node);
+        siftUp(node.getHeapIndex());
+    }
+
+    // Gets the node with the smallest f-value without removing it, or null if the list is empty.
+    public Node peek() {
+        return size == 0 ? null : heap[0];
+    }
+
+    // Removes and returns the node with the smallest f-value.
+    public Node poll() {
+        if (size == 0) {
+            return null;
+        }
+        Node first = heap[0];
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            heap[0].setHeapIndex(0);
+            siftDown(0);
+        }
+        heap[size] = null;
+        first.setHeapIndex(-1);
+        index.remove(key(first.getState()));
+        return first;
+    }
+
+    // Gets the weight of the h-value in the order of the nodes.
+    public double getWeight() {
+        return weight;
+    }
+
+    // Orders the nodes by g + weight * h from now on, reordering the nodes already in the list in O(n).
+    public void setWeight(double weight) {
+        this.weight = weight;
+        for (int position = (size >>> 1) - 1; position >= 0; position--) {
+            siftDown(position);
+        }
+    }
+
+    // Gets the smallest f = g + h of the nodes (whatever the weight, this scans the whole list),
+    // Integer.MAX_VALUE if the list is empty.
+    public int getMinFValue() {
+        int min = Integer.MAX_VALUE;
+        for (int position = 0; position < size; position++) {
+            min = Math.min(min, heap[position].getFValue());
+        }
+        return min;
+    }
+
+    // Gives a node already in the open list a lower cost and restores the heap order.
+    // The state may be a twin of the node's state, the path now leads to that twin. A heuristic that
+    // differs between twins can raise the f-value even though g drops, the node then moves down.
+    public void decreaseKey(Node node, long state, int gValue, int hValue, Node parent, int move) {
+        node.setState(state);
+        node.setGValue(gValue);
+        node.setHValue(hValue);
+        node.setParent(parent);
+        node.setMove(move);
+        siftUp(node.getHeapIndex());
+        siftDown(node.getHeapIndex());
+    }
+
+    // Private helper method for the map key of a state
+    private long key(long state) {
+        return symmetry == null ? state : symmetry.canonical(state);
+    }
+
+    // Private helper methods to restore the heap order
+
+    private int compare(Node a, Node b) {
+        if (weight == 1) {
+            return a.compareTo(b);
+        }
+        int byPriority = Double.compare(a.getGValue() + weight * a.getHValue(), b.getGValue() + weight * b.getHValue());
+        return byPriority != 0 ? byPriority : Integer.compare(a.getHValue(), b.getHValue());
+    }
+
+    private void siftUp(int position) {
+        Node node = heap[position];
+        while (position > 0) {
+            int parentPosition = (position - 1) >>> 1;
+            Node parent = heap[parentPosition];
+            if (compare(node, parent) >= 0) {
+                break;
+            }
+            heap[position] = parent;
+            parent.setHeapIndex(position);
+            position = parentPosition;
+        }
+        heap[position] = node;
+        node.setHeapIndex(position);
+    }
+
+    private void siftDown(int position) {
+        Node node = heap[position];
+        int half = size >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            int right = child + 1;
+            if (right < size && compare(heap[right], heap[child]) < 0) {
+                child = right;
+            }
+            if (compare(node, heap[child]) <= 0) {
+                break;
+            }
+            heap[position] = heap[child];
+            heap[position].setHeapIndex(position);
+            position = child;
+        }
+        heap[position] = node;
+        node.setHeapIndex(position);
+    }
+}
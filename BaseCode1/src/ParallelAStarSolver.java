@@ -0,0 +1,302 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+// Hash-distributed A* (HDA*) for solving one hard puzzle on many cores.
+// Every board state is owned by one worker thread, chosen by hashing the packed state. Each worker
+// keeps its own open list and best-g table and only expands the states it owns; children owned by
+// another worker are sent to it in batches through lock-free queues.
+//
+// Workers expand in their own f order, so a state can be reached again with a smaller g after it
+// was expanded; it is then simply expanded again. The first goal found becomes the incumbent
+// solution, and nodes whose f is not below its cost are no longer expanded. The search ends when
+// every worker is out of such nodes and no batch is in flight; at that point no path cheaper than
+// the incumbent can exist, so it is optimal (with an admissible heuristic).
+//
+// Termination is detected with one counter holding the number of busy workers plus the number of
+// batches in flight. A sender is busy while it sends, and a receiver becomes busy before it releases
+// the batch it took, so the counter can only reach 0 once all work is gone for good.
+public class ParallelAStarSolver {
+    private static final int BATCH_SIZE = 64; // Nodes sent to another worker in one message
+    private static final int EXPANSIONS_PER_ROUND = 256; // Expansions between checks of the inbox
+
+    private final Board initialBoard;
+    private final long goalState;
+    private final Heuristic heuristic;
+    private final SearchLimits limits;
+    private final Worker[] workers;
+    private final AtomicLong work = new AtomicLong(); // busy workers + batches in flight
+    private final AtomicReference<Node> incumbent = new AtomicReference<>(); // best goal node found so far
+    private final AtomicLong expanded = new AtomicLong(); // by all workers, added after every round
+    private volatile Solution.Status stopStatus; // the limit that stopped the search
+    private volatile boolean finished;
+
+    private ParallelAStarSolver(Board initialBoard, Board goalBoard, Heuristic heuristic, int threads, SearchLimits limits) {
+        this.initialBoard = initialBoard;
+        this.goalState = goalBoard.getPacked();
+        this.heuristic = heuristic;
+        this.limits = limits;
+        workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(initialBoard.copy());
+        }
+    }
+
+    // Solves how to get the initial state to the final state with minimum moves on all available cores
+    public static List<Board> solve(Board initialBoard, Board goalBoard, Heuristic heuristic) {
+        return solve(initialBoard, goalBoard, heuristic, Runtime.getRuntime().availableProcessors());
+    }
+
+    // Searches like solve on all available cores and returns the moves with the statistics of the search
+    public static Solution search(Board initialBoard, Board goalBoard, Heuristic heuristic) {
+        return search(initialBoard, goalBoard, heuristic, Runtime.getRuntime().availableProcessors());
+    }
+
+    // Solves how to get the initial state to the final state with minimum moves using the given number of threads
+    public static List<Board> solve(Board initialBoard, Board goalBoard, Heuristic heuristic, int threads) {
+        return search(initialBoard, goalBoard, heuristic, threads).toBoardList();
+    }
+
+    // Searches like solve and returns the moves with the metrics of the search
+    public static Solution search(Board initialBoard, Board goalBoard, Heuristic heuristic, int threads) {
+        return search(initialBoard, goalBoard, heuristic, threads, SearchLimits.NONE);
+    }
+
+    // Searches like solve until the goal is reached or one of the limits is (checked after every
+    // round of expansions, so the workers may go a little past the node limit)
+    public static Solution search(Board initialBoard, Board goalBoard, Heuristic heuristic, int threads, SearchLimits limits) {
+        long start = System.nanoTime();
+        if (!initialBoard.isPackable() || initialBoard.getSize() != goalBoard.getSize()) {
+            throw new IllegalArgumentException("HDA* needs boards of the same size, up to "
+                    + Board.MAX_PACKED_SIZE + "x" + Board.MAX_PACKED_SIZE);
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1, got " + threads);
+        }
+        // Check if the initial board state is solvable
+        if (!initialBoard.isSolvable(goalBoard)) {
+            return Solution.unsolvable(initialBoard, new SearchMetrics(), start);
+        }
+
+        ParallelAStarSolver solver = new ParallelAStarSolver(initialBoard, goalBoard, heuristic, threads, limits);
+        long initialState = initialBoard.getPacked();
+        Node root = new Node(initialState, null, 0, heuristic.estimate(initialBoard), Board.NO_MOVE);
+        if (initialState == solver.goalState) {
+            return Solution.solved(initialBoard, root, new SearchMetrics(), start);
+        }
+        solver.send(solver.ownerOf(initialState), batchOf(root));
+        return solver.run(start);
+    }
+
+    // Private helper method to run the workers until the search is over
+    private Solution run(long start) {
+        Thread[] threads = new Thread[workers.length];
+        for (int i = 0; i < workers.length; i++) {
+            threads[i] = new Thread(workers[i], "hda-worker-" + i);
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    thread.join();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true; // the workers cannot be abandoned half way, finish waiting
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        SearchMetrics metrics = new SearchMetrics();
+        for (Worker worker : workers) {
+            metrics.addPart(worker.expanded, worker.generated, worker.duplicates, worker.reopened,
+                    worker.peakOpen, worker.bestG.size());
+        }
+        if (stopStatus != null) {
+            return Solution.stopped(initialBoard, stopStatus, metrics, start); // the incumbent is not proven optimal
+        }
+        Node goalNode = incumbent.get();
+        if (goalNode == null) {
+            return Solution.unsolvable(initialBoard, metrics, start);
+        }
+        return Solution.solved(initialBoard, goalNode, metrics, start);
+    }
+
+    // Private helper method for the worker that owns a state
+    private int ownerOf(long state) {
+        long hash = state * 0xC2B2AE3D27D4EB4FL;
+        return (int) ((hash >>> 33) % workers.length);
+    }
+
+    // Private helper method to send a batch; the batch counts as work until it is taken in
+    private void send(int owner, List<Node> batch) {
+        work.incrementAndGet();
+        workers[owner].inbox.add(batch);
+    }
+
+    private static List<Node> batchOf(Node node) {
+        List<Node> batch = new ArrayList<>(1);
+        batch.add(node);
+        return batch;
+    }
+
+    // Private helper method for the cost bound set by the incumbent
+    private int incumbentCost() {
+        Node best = incumbent.get();
+        return best == null ? Integer.MAX_VALUE : best.getGValue();
+    }
+
+    // Private helper method to record a goal node if it beats the incumbent
+    private void offerGoal(Node goalNode) {
+        Node best = incumbent.get();
+        while ((best == null || goalNode.getGValue() < best.getGValue())
+                && !incumbent.compareAndSet(best, goalNode)) {
+            best = incumbent.get();
+        }
+    }
+
+    // One search thread with its own open list and best-g table.
+    // Nodes are never changed once created, a better path to a state is a new node.
+    private final class Worker implements Runnable {
+        private final ConcurrentLinkedQueue<List<Node>> inbox = new ConcurrentLinkedQueue<>();
+        private final PriorityQueue<Node> openList = new PriorityQueue<>();
+        private final LongIntMap bestG = new LongIntMap(); // packed state -> smallest g seen
+        private final List<List<Node>> outboxes = new ArrayList<>(); // outboxes.get(w) is the batch for worker w
+        private final Board board; // Scratch board moved in place to generate neighbors
+        private final int[] legalMoves = new int[4];
+        private boolean idle = true; // An idle worker does not count in the work counter
+        // Metrics of this worker, read by the solving thread after the worker thread ended
+        private long expanded;
+        private long generated;
+        private long duplicates;
+        private long reopened;
+        private int peakOpen;
+
+        Worker(Board board) {
+            this.board = board;
+            for (int i = 0; i < workers.length; i++) {
+                outboxes.add(new ArrayList<>(BATCH_SIZE));
+            }
+        }
+
+        @Override
+        public void run() {
+            while (!finished) {
+                List<Node> batch = inbox.poll();
+                if (batch != null) {
+                    if (idle) {
+                        work.incrementAndGet(); // become busy before releasing the batch
+                        idle = false;
+                    }
+                    for (Node node : batch) {
+                        receive(node);
+                    }
+                    work.decrementAndGet();
+                } else if (!idle) {
+                    if (!expandRound()) {
+                        flushOutboxes();
+                        idle = true;
+                        if (work.decrementAndGet() == 0) {
+                            finished = true;
+                        }
+                    }
+                } else {
+                    LockSupport.parkNanos(50_000); // nothing to do until a batch arrives
+                }
+            }
+        }
+
+        // Adds a node for an owned state unless that state was already reached as cheaply
+        private void receive(Node node) {
+            int known = bestG.get(node.getState());
+            if (known >= 0 && known <= node.getGValue()) {
+                duplicates++;
+                return;
+            }
+            if (known >= 0) {
+                reopened++;
+            }
+            bestG.put(node.getState(), node.getGValue());
+            openList.add(node);
+            peakOpen = Math.max(peakOpen, openList.size());
+        }
+
+        // Expands up to EXPANSIONS_PER_ROUND nodes, returns false if nothing was worth expanding
+        private boolean expandRound() {
+            int expanded = 0;
+            while (expanded < EXPANSIONS_PER_ROUND) {
+                Node node = openList.peek();
+                if (node == null || node.getFValue() >= incumbentCost()) {
+                    break;
+                }
+                openList.poll();
+                if (node.getGValue() > bestG.get(node.getState())) {
+                    continue; // a cheaper node for this state came in after this one
+                }
+                expand(node);
+                expanded++;
+            }
+            this.expanded += expanded;
+            flushOutboxes();
+            Solution.Status stop = limits.checkNow(ParallelAStarSolver.this.expanded.addAndGet(expanded));
+            if (stop != null) {
+                stopStatus = stop;
+                finished = true;
+            }
+            return expanded > 0;
+        }
+
+        private void expand(Node node) {
+            board.setPacked(node.getState());
+            int emptyCell = board.getEmptyCell();
+            int moveCount = board.getLegalMoves(legalMoves);
+            for (int i = 0; i < moveCount; i++) {
+                int move = legalMoves[i];
+                if (node.getMove() != Board.NO_MOVE && move == Board.reverseMove(node.getMove()))
+                    continue;
+
+                int tile = board.applyMove(move);
+                long childState = board.getPacked();
+                generated++;
+                int childH = heuristic.update(board, node.getHValue(), tile, board.getEmptyCell(), emptyCell);
+                Node child = new Node(childState, node, node.getGValue() + 1, childH, move);
+                board.undoMove(move);
+
+                if (childState == goalState) {
+                    offerGoal(child);
+                    continue;
+                }
+                if (child.getFValue() >= incumbentCost()) {
+                    continue;
+                }
+                int owner = ownerOf(childState);
+                if (workers[owner] == this) {
+                    receive(child);
+                } else {
+                    List<Node> outbox = outboxes.get(owner);
+                    outbox.add(child);
+                    if (outbox.size() == BATCH_SIZE) {
+                        send(owner, outbox);
+                        outboxes.set(owner, new ArrayList<>(BATCH_SIZE));
+                    }
+                }
+            }
+        }
+
+        private void flushOutboxes() {
+            for (int owner = 0; owner < outboxes.size(); owner++) {
+                List<Node> outbox = outboxes.get(owner);
+                if (!outbox.isEmpty()) {
+                    send(owner, outbox);
+                    outboxes.set(owner, new ArrayList<>(BATCH_SIZE));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,218 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+// An additive pattern database for one group (pattern) of tiles.
+// For every placement of the pattern tiles it stores the fewest moves of pattern tiles needed to
+// bring them to their goal cells, when the other tiles are ignored (the empty cell passes them for free).
+// Because only pattern tiles are counted, databases of disjoint patterns can be added up and the
+// sum is still admissible.
+//
+// Placements are numbered by the rank of the partial permutation of the pattern tiles' cells. An entry
+// holds the distance minus the Manhattan distance of the pattern tiles, halved: every move of a
+// pattern tile changes that Manhattan distance by one, so the difference is always even. Entries are
+// stored two per byte (4 bits each, capped at 15, which stands for 30 moves above the Manhattan
+// distance). Databases are built offline by a
+// breadth-first search backwards from the goal (see PatternDatabaseBuilder) and saved in a small
+// binary file that is memory-mapped read-only when loaded, so starting a solver does not parse or
+// copy the table and several processes share the same pages.
+public class PatternDatabase {
+    // File layout: magic, version, board size, pattern size, goal cell of the empty cell, reserved byte,
+    // (tile, goal cell) pairs, number of entries, then the 4-bit entries
+    private static final int MAGIC = 0x50444231; // "PDB1"
+    private static final int VERSION = 2; // version 1 files stored distances capped at 15
+    public static final int MAX_VALUE = 15; // Largest value of a 4-bit entry
+    public static final int MAX_PATTERN_SIZE = 8;
+
+    // Databases already mapped in this process, so every solver shares one mapping per file
+    private static final ConcurrentHashMap<Path, PatternDatabase> loaded = new ConcurrentHashMap<>();
+
+    private final int size; // Number of rows (and columns) of the boards
+    private final int[] tiles; // The pattern tiles
+    private final int[] goalCells; // goalCells[i] is the goal cell of tiles[i]
+    private final int goalEmptyCell; // Goal cell of the empty cell
+    private final long entries; // Number of placements of the pattern tiles
+    private final ByteBuffer data; // Two entries per byte, the even rank in the low 4 bits
+
+    PatternDatabase(int size, int[] tiles, int[] goalCells, int goalEmptyCell, ByteBuffer data) {
+        this.size = size;
+        this.tiles = tiles;
+        this.goalCells = goalCells;
+        this.goalEmptyCell = goalEmptyCell;
+        this.entries = placements(size * size, tiles.length);
+        this.data = data;
+    }
+
+    // Gets the number of placements of k tiles on the given number of cells (cells! / (cells - k)!).
+    public static long placements(int cells, int k) {
+        long count = 1;
+        for (int i = 0; i < k; i++) {
+            count *= cells - i;
+        }
+        return count;
+    }
+
+    // Gets the pattern tiles.
+    public int[] getTiles() {
+        return tiles.clone();
+    }
+
+    // Gets the number of rows (and columns) of the boards.
+    public int getSize() {
+        return size;
+    }
+
+    // Checks if the database was built for the given goal board.
+    public boolean matches(Board goalBoard) {
+        if (goalBoard.getSize() != size || goalBoard.getEmptyCell() != goalEmptyCell) {
+            return false;
+        }
+        for (int i = 0; i < tiles.length; i++) {
+            if (goalBoard.getTile(goalCells[i]) != tiles[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Gets the entry of a placement: half of its distance minus the Manhattan distance of the pattern tiles.
+    public int get(int rank) {
+        int packed = data.get(rank >>> 1);
+        return (rank & 1) == 0 ? packed & 0xF : (packed >>> 4) & 0xF;
+    }
+
+    // Gets the rank of a placement, cells[i] being the cell of tiles[i].
+    // The digits are the cell numbers with the cells of the earlier tiles taken out,
+    // read as a mixed-radix number (radix cells, cells - 1, ...).
+    public static int rank(int[] cells, int cellCount) {
+        int rank = 0;
+        int used = 0; // bit mask of the cells of the earlier tiles
+        for (int i = 0; i < cells.length; i++) {
+            int cell = cells[i];
+            int digit = cell - Integer.bitCount(used & ((1 << cell) - 1));
+            rank = rank * (cellCount - i) + digit;
+            used |= 1 << cell;
+        }
+        return rank;
+    }
+
+    // Fills cells with the placement of the given rank (the inverse of rank).
+    public static void unrank(int rank, int[] cells, int cellCount) {
+        int k = cells.length;
+        int[] digits = new int[k];
+        for (int i = k - 1; i >= 0; i--) {
+            int radix = cellCount - i;
+            digits[i] = rank % radix;
+            rank /= radix;
+        }
+        int used = 0;
+        for (int i = 0; i < k; i++) {
+            int cell = -1;
+            for (int free = digits[i]; free >= 0; free--) {
+                cell++;
+                while ((used & (1 << cell)) != 0) {
+                    cell++;
+                }
+            }
+            cells[i] = cell;
+            used |= 1 << cell;
+        }
+    }
+
+    // Methods for saving and loading
+
+    // Writes the database to a file (written to a temporary file first and then moved into place).
+    public void save(Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(headerLength(tiles.length)).order(ByteOrder.BIG_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION);
+            header.put((byte) size).put((byte) tiles.length).put((byte) goalEmptyCell).put((byte) 0);
+            for (int i = 0; i < tiles.length; i++) {
+                header.put((byte) tiles[i]).put((byte) goalCells[i]);
+            }
+            header.putLong(entries);
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            ByteBuffer body = data.duplicate();
+            body.clear();
+            while (body.hasRemaining()) {
+                channel.write(body);
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Maps a database file read-only. Loading the same file again returns the same mapping.
+    public static PatternDatabase load(Path file) throws IOException {
+        Path key = file.toAbsolutePath().normalize();
+        PatternDatabase database = loaded.get(key);
+        if (database == null) {
+            database = map(key);
+            PatternDatabase previous = loaded.putIfAbsent(key, database);
+            if (previous != null) {
+                database = previous;
+            }
+        }
+        return database;
+    }
+
+    // Private helper method to map a database file
+    private static PatternDatabase map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer prefix = ByteBuffer.allocate(12);
+            while (prefix.hasRemaining() && channel.read(prefix) >= 0) {
+                // keep reading until the fixed part of the header is complete
+            }
+            prefix.flip();
+            if (prefix.remaining() < 12 || prefix.getInt() != MAGIC) {
+                throw new IOException(file + " is not a pattern database file");
+            }
+            if (prefix.getInt() != VERSION) {
+                throw new IOException(file + " is from another version, build it again with PatternDatabaseBuilder");
+            }
+            int size = prefix.get();
+            int k = prefix.get();
+            int goalEmptyCell = prefix.get();
+            if (k < 1 || k > MAX_PATTERN_SIZE) {
+                throw new IOException(file + " has an invalid pattern size " + k);
+            }
+            int headerLength = headerLength(k);
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, headerLength);
+            header.position(12);
+            int[] tiles = new int[k];
+            int[] goalCells = new int[k];
+            for (int i = 0; i < k; i++) {
+                tiles[i] = header.get();
+                goalCells[i] = header.get();
+            }
+            long entries = header.getLong();
+            long dataLength = (entries + 1) / 2;
+            if (entries != placements(size * size, k) || channel.size() != headerLength + dataLength) {
+                throw new IOException(file + " is truncated or does not match its header");
+            }
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, headerLength, dataLength);
+            return new PatternDatabase(size, tiles, goalCells, goalEmptyCell, data);
+        }
+    }
+
+    // Private helper method for the header length of a pattern with k tiles
+    private static int headerLength(int k) {
+        return 12 + 2 * k + 8;
+    }
+
+    @Override
+    public String toString() {
+        return "PatternDatabase" + Arrays.toString(tiles);
+    }
+}
@@ -0,0 +1,308 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// The offline step that builds pattern databases and writes them to files.
+//
+// The search runs backwards from the goal over abstract states made of the cells of the pattern
+// tiles plus the region of non-pattern cells the empty cell is in: inside that region the empty
+// cell moves for free, so only moving a pattern tile into it costs a move. Every abstract state is
+// visited once in breadth-first order, so the first time a placement is reached is its distance.
+//
+// Usage: java PatternDatabaseBuilder <size> <output directory> [--goal t,t,...] [pattern ...]
+// where a pattern is a comma separated list of tiles, e.g. 1,5,6,9,10,13. Without patterns the
+// default partition for the size is built (6-6-3 for 4x4). Building a pattern of k tiles on a
+// board of c cells needs about c!/(c-k)! * c / 8 bytes for the visited set, so 7 and 8 tile
+// patterns need a large heap (-Xmx); the resulting files are much smaller.
+public class PatternDatabaseBuilder {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: java PatternDatabaseBuilder <size> <output directory> [--goal t,t,...] [pattern ...]");
+            return;
+        }
+        int size = Integer.parseInt(args[0]);
+        Path directory = Paths.get(args[1]);
+        Board goalBoard = Board.standardGoal(size);
+        List<int[]> patterns = new ArrayList<>();
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].equals("--goal")) {
+                goalBoard = Board.parse(args[++i]);
+                if (goalBoard.getSize() != size) {
+                    throw new IllegalArgumentException("The goal is not a " + size + "x" + size + " board");
+                }
+            } else {
+                patterns.add(parsePattern(args[i]));
+            }
+        }
+        if (patterns.isEmpty()) {
+            patterns = defaultPartition(goalBoard);
+        }
+
+        Files.createDirectories(directory);
+        for (int[] pattern : patterns) {
+            long start = System.nanoTime();
+            PatternDatabase database = build(goalBoard, pattern);
+            Path file = directory.resolve(fileName(size, pattern));
+            database.save(file);
+            System.out.printf("%s: %d entries in %.1f s -> %s%n", database,
+                    PatternDatabase.placements(size * size, pattern.length), (System.nanoTime() - start) / 1e9, file);
+        }
+    }
+
+    // Gets the file name used for a pattern, e.g. pdb-4-1-5-6-9-10-13.bin
+    public static String fileName(int size, int[] pattern) {
+        StringBuilder name = new StringBuilder("pdb-").append(size);
+        for (int tile : pattern) {
+            name.append('-').append(tile);
+        }
+        return name.append(".bin").toString();
+    }
+
+    // Gets the default disjoint partition of the tiles of a goal board into patterns:
+    // 6-6-3 for 4x4 (the partition of Korf and Felner), 4-4 for 3x3, groups of at most 6 otherwise.
+    // The tiles are taken in an order of the goal cells that keeps every group together on the board,
+    // skipping the empty cell, so the group sizes are the same wherever the goal has its empty cell.
+    public static List<int[]> defaultPartition(Board goalBoard) {
+        int size = goalBoard.getSize();
+        int cells = size * size;
+        int[] cellOrder;
+        int[] groupSizes;
+        if (size == 4) {
+            cellOrder = new int[] {0, 4, 5, 8, 9, 12, 6, 7, 10, 11, 13, 14, 15, 1, 2, 3};
+            groupSizes = new int[] {6, 6, 3};
+        } else {
+            cellOrder = new int[cells];
+            for (int cell = 0; cell < cells; cell++) {
+                cellOrder[cell] = cell;
+            }
+            int groupSize = size == 3 ? 4 : 6;
+            groupSizes = new int[(cells - 1 + groupSize - 1) / groupSize];
+            for (int group = 0; group < groupSizes.length; group++) {
+                groupSizes[group] = Math.min(groupSize, cells - 1 - group * groupSize);
+            }
+        }
+        int[] tiles = Arrays.stream(cellOrder).map(goalBoard::getTile).filter(tile -> tile != 0).toArray();
+        List<int[]> partition = new ArrayList<>();
+        int from = 0;
+        for (int groupSize : groupSizes) {
+            partition.add(Arrays.copyOfRange(tiles, from, from + groupSize));
+            from += groupSize;
+        }
+        return partition;
+    }
+
+    // Builds the database of the given pattern tiles for the given goal board (kept on the heap).
+    public static PatternDatabase build(Board goalBoard, int[] pattern) {
+        int size = goalBoard.getSize();
+        int cells = size * size;
+        int k = pattern.length;
+        if (cells > 31) {
+            throw new IllegalArgumentException("Pattern databases are supported for boards up to 5x5");
+        }
+        if (k < 1 || k > PatternDatabase.MAX_PATTERN_SIZE) {
+            throw new IllegalArgumentException("A pattern needs 1 to " + PatternDatabase.MAX_PATTERN_SIZE + " tiles");
+        }
+        long entries = PatternDatabase.placements(cells, k);
+        if (entries > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("A pattern of " + k + " tiles is too big for a " + size + "x" + size + " board");
+        }
+
+        int[] goalCells = new int[k];
+        for (int i = 0; i < k; i++) {
+            goalCells[i] = findCell(goalBoard, pattern[i]);
+            if (pattern[i] == 0 || goalCells[i] < 0) {
+                throw new IllegalArgumentException("Tile " + pattern[i] + " is not a tile of the goal board");
+            }
+        }
+        int[][] neighbors = neighborCells(size);
+
+        // distances, 0xF until reached
+        byte[] data = new byte[(int) ((entries + 1) / 2)];
+        Arrays.fill(data, (byte) 0xFF);
+        long[] visited = new long[(int) ((entries * cells + 63) / 64)]; // (rank, region) pairs already queued
+
+        int[] positions = goalCells.clone();
+        int start = PatternDatabase.rank(positions, cells);
+        int[] regionCells = new int[cells];
+        int startRegion = region(goalBoard.getEmptyCell(), mask(positions), neighbors, regionCells);
+        LongList frontier = new LongList();
+        frontier.add((long) start * cells + startRegion);
+        markVisited(visited, (long) start * cells + startRegion);
+        setValue(data, start, 0);
+
+        int[] scratch = new int[cells];
+        for (int distance = 0; frontier.size() > 0; distance++) {
+            LongList next = new LongList();
+            for (int f = 0; f < frontier.size(); f++) {
+                long state = frontier.get(f);
+                int rank = (int) (state / cells);
+                PatternDatabase.unrank(rank, positions, cells);
+                int occupied = mask(positions);
+                int regionSize = regionCells((int) (state % cells), occupied, neighbors, regionCells);
+                // move a pattern tile next to the empty region into it
+                for (int r = 0; r < regionSize; r++) {
+                    int emptyCell = regionCells[r];
+                    for (int tileCell : neighbors[emptyCell]) {
+                        if ((occupied & (1 << tileCell)) == 0) {
+                            continue;
+                        }
+                        int i = indexOf(positions, tileCell);
+                        positions[i] = emptyCell;
+                        int nextRank = PatternDatabase.rank(positions, cells);
+                        int nextOccupied = occupied & ~(1 << tileCell) | (1 << emptyCell);
+                        long nextState = (long) nextRank * cells + region(tileCell, nextOccupied, neighbors, scratch);
+                        if (!isVisited(visited, nextState)) {
+                            markVisited(visited, nextState);
+                            next.add(nextState);
+                            if (getValue(data, nextRank) == 0xF) {
+                                // the excess over the Manhattan distance of the pattern tiles is even
+                                int excess = distance + 1 - manhattan(positions, goalCells, size);
+                                setValue(data, nextRank, Math.min(excess / 2, PatternDatabase.MAX_VALUE));
+                            }
+                        }
+                        positions[i] = tileCell;
+                    }
+                }
+            }
+            frontier = next;
+        }
+        return new PatternDatabase(size, pattern.clone(), goalCells, goalBoard.getEmptyCell(), ByteBuffer.wrap(data));
+    }
+
+    // Private helper methods for the abstract states
+
+    // The smallest cell of the region of free cells around start, the region identifies the state
+    private static int region(int start, int occupied, int[][] neighbors, int[] scratch) {
+        int count = regionCells(start, occupied, neighbors, scratch);
+        int smallest = Integer.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            smallest = Math.min(smallest, scratch[i]);
+        }
+        return smallest;
+    }
+
+    // Flood fills the free cells connected to start, returns how many there are
+    private static int regionCells(int start, int occupied, int[][] neighbors, int[] regionCells) {
+        int seen = occupied | (1 << start);
+        int count = 0;
+        regionCells[count++] = start;
+        for (int i = 0; i < count; i++) {
+            for (int neighbor : neighbors[regionCells[i]]) {
+                if ((seen & (1 << neighbor)) == 0) {
+                    seen |= 1 << neighbor;
+                    regionCells[count++] = neighbor;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static int mask(int[] positions) {
+        int mask = 0;
+        for (int cell : positions) {
+            mask |= 1 << cell;
+        }
+        return mask;
+    }
+
+    // The Manhattan distance of the pattern tiles from their goal cells
+    private static int manhattan(int[] positions, int[] goalCells, int size) {
+        int distance = 0;
+        for (int i = 0; i < positions.length; i++) {
+            distance += Math.abs(positions[i] / size - goalCells[i] / size)
+                    + Math.abs(positions[i] % size - goalCells[i] % size);
+        }
+        return distance;
+    }
+
+    private static int indexOf(int[] positions, int cell) {
+        for (int i = 0; i < positions.length; i++) {
+            if (positions[i] == cell) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int[][] neighborCells(int size) {
+        int[][] neighbors = new int[size * size][];
+        for (int cell = 0; cell < size * size; cell++) {
+            int row = cell / size;
+            int col = cell % size;
+            List<Integer> list = new ArrayList<>();
+            if (row > 0) list.add(cell - size);
+            if (row < size - 1) list.add(cell + size);
+            if (col > 0) list.add(cell - 1);
+            if (col < size - 1) list.add(cell + 1);
+            neighbors[cell] = list.stream().mapToInt(Integer::intValue).toArray();
+        }
+        return neighbors;
+    }
+
+    private static int findCell(Board board, int tile) {
+        for (int cell = 0; cell < board.getSize() * board.getSize(); cell++) {
+            if (board.getTile(cell) == tile) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+
+    // Private helper methods for the bit set and the 4-bit table
+
+    private static boolean isVisited(long[] visited, long index) {
+        return (visited[(int) (index >>> 6)] & (1L << index)) != 0;
+    }
+
+    private static void markVisited(long[] visited, long index) {
+        visited[(int) (index >>> 6)] |= 1L << index;
+    }
+
+    private static int getValue(byte[] data, int rank) {
+        int packed = data[rank >>> 1];
+        return (rank & 1) == 0 ? packed & 0xF : (packed >>> 4) & 0xF;
+    }
+
+    private static void setValue(byte[] data, int rank, int value) {
+        int index = rank >>> 1;
+        if ((rank & 1) == 0) {
+            data[index] = (byte) ((data[index] & 0xF0) | value);
+        } else {
+            data[index] = (byte) ((data[index] & 0x0F) | (value << 4));
+        }
+    }
+
+    // Private helper methods for the command line
+
+    // The tiles of a pattern, a comma separated list (boards are read with Board.parse)
+    private static int[] parsePattern(String list) {
+        return Arrays.stream(list.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+    }
+
+    // A growable array of longs for the breadth-first frontiers
+    private static final class LongList {
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// The additive pattern database heuristic: the sum over disjoint patterns of the database distance of
+// each pattern's placement. The databases store the distance above the Manhattan distance of the
+// pattern tiles, so each pattern counts that Manhattan distance plus twice its entry.
+// A move only changes the pattern of the moved tile, so updates look up a single database.
+//
+// When the goal has symmetries (see BoardSymmetry), every image of a board needs the same number of
+// moves, so the largest sum over the images of the board is admissible too, and usually more than
+// the plain sum, since an image spreads the tiles over the patterns differently. That maximum is
+// optional (see the constructors): the estimate of a child cannot be updated from the maximum of its
+// parent, so every update scans the board once per image and looks up every pattern in it, for the
+// 4x4 corner goals 2 scans and 6 lookups instead of 1 scan and 2 lookups, about 3 times the work
+// per generated board. On Korf's first 4x4 instances that is made up for by less than half the
+// expansions, for A* and IDA*; searches that expand few nodes, or goals without symmetries, only
+// pay the cost. HeuristicType.PATTERN_DATABASE uses it when the puzzle.pdb.symmetric property is true.
+public class PatternDatabaseHeuristic implements Heuristic {
+    // System property with the directory HeuristicType.PATTERN_DATABASE loads its files from
+    public static final String DIRECTORY_PROPERTY = "puzzle.pdb.dir";
+    // System property that makes HeuristicType.PATTERN_DATABASE take the maximum over the goal symmetries
+    public static final String SYMMETRIC_PROPERTY = "puzzle.pdb.symmetric";
+
+    private final int size; // Number of rows (and columns) of the boards
+    private final PatternDatabase[] databases;
+    private final int[][] patternTiles; // patternTiles[p] are the tiles of databases[p]
+    private final int[] patternOf; // patternOf[tile] is the index of the tile's pattern, -1 for none
+    private final int[] indexInPattern; // indexInPattern[tile] is the position of the tile in its pattern
+    private final ManhattanHeuristic manhattan;
+    private final BoardSymmetry symmetry; // symmetries of the goal the lookups are done for, null for none
+
+    // Combines the given databases, which must be disjoint and built for the goal board.
+    public PatternDatabaseHeuristic(Board goalBoard, List<PatternDatabase> databases) {
+        this(goalBoard, databases, false);
+    }
+
+    // Combines the databases like PatternDatabaseHeuristic(goalBoard, databases), taking the maximum over
+    // the images of the board under the symmetries of the goal if symmetric is true.
+    public PatternDatabaseHeuristic(Board goalBoard, List<PatternDatabase> databases, boolean symmetric) {
+        size = goalBoard.getSize();
+        this.databases = databases.toArray(new PatternDatabase[0]);
+        patternTiles = new int[this.databases.length][];
+        patternOf = new int[size * size];
+        indexInPattern = new int[size * size];
+        Arrays.fill(patternOf, -1);
+        for (int p = 0; p < this.databases.length; p++) {
+            if (!this.databases[p].matches(goalBoard)) {
+                throw new IllegalArgumentException(this.databases[p] + " was built for a different goal board");
+            }
+            patternTiles[p] = this.databases[p].getTiles();
+            for (int i = 0; i < patternTiles[p].length; i++) {
+                int tile = patternTiles[p][i];
+                if (patternOf[tile] != -1) {
+                    throw new IllegalArgumentException("Tile " + tile + " is in more than one pattern");
+                }
+                patternOf[tile] = p;
+                indexInPattern[tile] = i;
+            }
+        }
+        manhattan = new ManhattanHeuristic(goalBoard);
+        symmetry = symmetric && goalBoard.isPackable() ? BoardSymmetry.forGoal(goalBoard) : null;
+    }
+
+    // Loads (memory-maps) the database files of the default partition of the goal board from a directory.
+    public static PatternDatabaseHeuristic load(Board goalBoard, Path directory) throws IOException {
+        return load(goalBoard, directory, false);
+    }
+
+    // Loads the default partition like load(goalBoard, directory), with the maximum over the symmetries
+    // of the goal if symmetric is true.
+    public static PatternDatabaseHeuristic load(Board goalBoard, Path directory, boolean symmetric)
+            throws IOException {
+        List<PatternDatabase> databases = new ArrayList<>();
+        for (int[] pattern : PatternDatabaseBuilder.defaultPartition(goalBoard)) {
+            Path file = directory.resolve(PatternDatabaseBuilder.fileName(goalBoard.getSize(), pattern));
+            if (!Files.exists(file)) {
+                throw new IOException("Missing pattern database " + file + ", build it with PatternDatabaseBuilder");
+            }
+            databases.add(PatternDatabase.load(file));
+        }
+        return new PatternDatabaseHeuristic(goalBoard, databases, symmetric);
+    }
+
+    // Loads the default partition from the directory in the puzzle.pdb.dir system property ("pdb" if unset),
+    // symmetric if the puzzle.pdb.symmetric property is true.
+    public static PatternDatabaseHeuristic loadDefault(Board goalBoard) {
+        try {
+            return load(goalBoard, Paths.get(System.getProperty(DIRECTORY_PROPERTY, "pdb")),
+                    Boolean.getBoolean(SYMMETRIC_PROPERTY));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public int estimate(Board board) {
+        int h = 0;
+        int count = symmetry == null ? 1 : symmetry.getCount();
+        long[] positions = new long[databases.length];
+        for (int s = 0; s < count; s++) {
+            // one pass over the cells collects the cells of the tiles of every pattern, 5 bits each
+            Arrays.fill(positions, 0);
+            for (int cell = 0; cell < size * size; cell++) {
+                int tile = board.getTile(cell);
+                int place = cell;
+                if (s != 0) {
+                    tile = symmetry.mapTile(s, tile);
+                    place = symmetry.mapCell(s, place);
+                }
+                if (patternOf[tile] >= 0) {
+                    positions[patternOf[tile]] |= (long) place << (5 * indexInPattern[tile]);
+                }
+            }
+            int sum = 0;
+            for (int p = 0; p < databases.length; p++) {
+                sum += patternValue(p, positions[p]);
+            }
+            h = Math.max(h, sum);
+        }
+        return h;
+    }
+
+    @Override
+    public int update(Board board, int h, int tile, int from, int to) {
+        if (symmetry != null && symmetry.getCount() > 1) {
+            return estimate(board); // the maximum cannot be updated one pattern at a time, see above
+        }
+        int p = patternOf[tile];
+        if (p < 0) {
+            return h;
+        }
+        // the cells of the pattern tiles, 5 bits each, with the moved tile in each of its two cells
+        long positions = 0;
+        for (int cell = 0; cell < size * size; cell++) {
+            int other = board.getTile(cell);
+            if (patternOf[other] == p) {
+                positions |= (long) cell << (5 * indexInPattern[other]);
+            }
+        }
+        long before = positions & ~(0x1FL << (5 * indexInPattern[tile])) | (long) from << (5 * indexInPattern[tile]);
+        return h - patternValue(p, before) + patternValue(p, positions);
+    }
+
+    // Private helper method for the value of one pattern with its tiles in the given cells, 5 bits each
+    private int patternValue(int p, long positions) {
+        int[] tiles = patternTiles[p];
+        int cells = size * size;
+        int rank = 0;
+        int used = 0;
+        int distance = 0;
+        // the same ranking as PatternDatabase.rank
+        for (int i = 0; i < tiles.length; i++) {
+            int cell = (int) (positions >>> (5 * i)) & 0x1F;
+            int digit = cell - Integer.bitCount(used & ((1 << cell) - 1));
+            rank = rank * (cells - i) + digit;
+            used |= 1 << cell;
+            distance += manhattan.distance(tiles[i], cell);
+        }
+        return distance + 2 * databases[p].get(rank);
+    }
+}
@@ -0,0 +1,18 @@
+// A puzzle to solve: an initial board and the goal board to reach from it.
+public class Puzzle {
+    private final Board initialBoard;
+    private final Board goalBoard;
+
+    public Puzzle(Board initialBoard, Board goalBoard) {
+        this.initialBoard = initialBoard;
+        this.goalBoard = goalBoard;
+    }
+
+    public Board getInitialBoard() {
+        return initialBoard;
+    }
+
+    public Board getGoalBoard() {
+        return goalBoard;
+    }
+}
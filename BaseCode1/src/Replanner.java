@@ -0,0 +1,217 @@
+import java.util.Arrays;
+
+// Solves a puzzle again after the board has drifted a few moves away from the last solution, for
+// interactive use where the user makes moves of their own between solves.
+//
+// The replanner keeps the path of its last solution. When the new board is on that path, the rest
+// of the path is the solution and no search is needed. Otherwise a breadth-first search from the new
+// board looks for the nearest boards of the path, and the solution is the way there followed by the
+// rest of the path; the work grows with the distance from the path, not with the size of the puzzle.
+// If the path is not found within the node limit, or there is no path yet, the engine solves the
+// board from scratch and its solution becomes the new path. The metrics of that solution include the
+// work of the failed repair, counted as one more search.
+//
+// A repaired solution may be a little longer than the optimal one. Its suboptimality bound compares
+// it with a lower bound on the optimal cost: the heuristic estimate of the new board, and, when the
+// old path was optimal, the remaining cost of every path board reached minus the moves to reach it.
+// A bound of 1 proves the repaired solution optimal.
+public class Replanner {
+    public static final int DEFAULT_MAX_REPAIR_NODES = 100_000;
+    private static final int REPAIR_SLACK = 2; // depths searched past the first path board found, for a better one
+    private static final int ROOT = 4; // the move stored for the initial board of the search, no move code
+
+    private final Board goalBoard;
+    private final Heuristic heuristic;
+    private final SearchEngine engine;
+    private final int maxRepairNodes;
+    private final int[] legalMoves = new int[4];
+
+    private long[] pathStates; // the boards of the last solution, from its initial board to the goal
+    private int[] pathMoves; // the moves between them
+    private LongIntMap pathIndex; // packed path board -> its index in pathStates
+    private boolean pathOptimal; // whether the rest of the path from every board of it is optimal
+    private Solution lastSolution;
+
+    // Constructs a replanner that solves from scratch with the engine, guided by the heuristic (built for goalBoard).
+    public Replanner(Board goalBoard, Heuristic heuristic, SearchEngine engine) {
+        this(goalBoard, heuristic, engine, DEFAULT_MAX_REPAIR_NODES);
+    }
+
+    // Constructs a replanner that expands up to maxRepairNodes boards to get back to its path before
+    // it solves from scratch.
+    public Replanner(Board goalBoard, Heuristic heuristic, SearchEngine engine, int maxRepairNodes) {
+        if (!goalBoard.isPackable()) {
+            throw new IllegalArgumentException("Replanning needs boards up to "
+                    + Board.MAX_PACKED_SIZE + "x" + Board.MAX_PACKED_SIZE);
+        }
+        this.goalBoard = goalBoard.copy();
+        this.heuristic = heuristic;
+        this.engine = engine;
+        this.maxRepairNodes = maxRepairNodes;
+    }
+
+    // Solves the board: the rest of the last path, a repaired path or a new solution.
+    public Solution solve(Board initialBoard) {
+        if (initialBoard.getSize() != goalBoard.getSize()) {
+            throw new IllegalArgumentException("Expected a " + goalBoard.getSize() + "x" + goalBoard.getSize()
+                    + " board like the goal, got " + initialBoard.getSize() + "x" + initialBoard.getSize());
+        }
+        long start = System.nanoTime();
+        SearchMetrics repairMetrics = new SearchMetrics();
+        Solution solution = pathStates == null ? null : repair(initialBoard, repairMetrics, start);
+        if (solution == null) {
+            long repairNanos = System.nanoTime() - start;
+            solution = engine.search(initialBoard, goalBoard, heuristic);
+            if (pathStates != null) {
+                repairMetrics.finish(0, repairNanos);
+                solution.getMetrics().add(repairMetrics);
+            }
+            if (solution.isSolved()) {
+                setPath(solution);
+                pathOptimal = solution.isOptimal();
+            }
+        }
+        lastSolution = solution;
+        return solution;
+    }
+
+    // Gets the solution of the last solve, null before the first one.
+    public Solution getLastSolution() {
+        return lastSolution;
+    }
+
+    // Forgets the path, the next solve starts from scratch.
+    public void reset() {
+        pathStates = null;
+        pathMoves = null;
+        pathIndex = null;
+        lastSolution = null;
+    }
+
+    // Private helper method to get back to the path from the board, null if it takes too many nodes
+    // (the metrics then hold the work done so far)
+    private Solution repair(Board initialBoard, SearchMetrics metrics, long start) {
+        long initialState = initialBoard.getPacked();
+        int onPath = pathIndex.get(initialState);
+        if (onPath >= 0) {
+            int cost = pathStates.length - 1 - onPath;
+            double bound = pathOptimal ? 1 : bound(cost, heuristic.estimate(initialBoard));
+            Solution solution = rest(initialBoard, new int[0], 0, onPath, bound, metrics, start);
+            setPath(solution);
+            return solution;
+        }
+        if (!initialBoard.isSolvable(goalBoard)) {
+            return Solution.unsolvable(initialBoard, metrics, start);
+        }
+
+        // breadth-first search layer by layer, every board remembers the move that reached it
+        LongIntMap reached = new LongIntMap(); // packed board -> the move that reached it
+        reached.put(initialState, ROOT);
+        long[] layer = {initialState};
+        int layerSize = 1;
+        Board board = initialBoard.copy();
+        long bestState = 0;
+        int bestCost = Integer.MAX_VALUE;
+        int bestIndex = -1;
+        int bestDepth = 0;
+        int lowerBound = heuristic.estimate(initialBoard);
+        int lastDepth = Integer.MAX_VALUE; // the depth the search stops at, once a path board is found
+        for (int depth = 1; depth <= lastDepth && layerSize > 0; depth++) {
+            long[] next = new long[layerSize * 3 + 1];
+            int nextSize = 0;
+            for (int i = 0; i < layerSize; i++) {
+                if (metrics.getExpanded() >= maxRepairNodes) {
+                    metrics.closed(reached.size());
+                    return null;
+                }
+                metrics.expanded();
+                board.setPacked(layer[i]);
+                int moveCount = board.getLegalMoves(legalMoves);
+                for (int m = 0; m < moveCount; m++) {
+                    int move = legalMoves[m];
+                    board.applyMove(move);
+                    long state = board.getPacked();
+                    metrics.generated();
+                    if (reached.get(state) >= 0) {
+                        metrics.duplicate();
+                    } else {
+                        reached.put(state, move);
+                        int index = pathIndex.get(state);
+                        if (index >= 0) {
+                            int cost = depth + pathStates.length - 1 - index;
+                            if (cost < bestCost) {
+                                bestCost = cost;
+                                bestState = state;
+                                bestIndex = index;
+                                bestDepth = depth;
+                            }
+                            if (pathOptimal) {
+                                // the path board is at most depth moves from the initial board
+                                lowerBound = Math.max(lowerBound, pathStates.length - 1 - index - depth);
+                            }
+                            lastDepth = Math.min(lastDepth, depth + REPAIR_SLACK);
+                        }
+                        if (nextSize == next.length) {
+                            next = Arrays.copyOf(next, nextSize * 2);
+                        }
+                        next[nextSize++] = state;
+                    }
+                    board.undoMove(move);
+                }
+            }
+            metrics.open(nextSize);
+            layer = next;
+            layerSize = nextSize;
+        }
+        metrics.closed(reached.size());
+        if (bestIndex < 0) {
+            return null;
+        }
+
+        // the moves from the initial board to the path board, found backwards from it
+        int[] moves = new int[bestDepth];
+        board.setPacked(bestState);
+        for (int i = bestDepth - 1; i >= 0; i--) {
+            moves[i] = reached.get(board.getPacked());
+            board.undoMove(moves[i]);
+        }
+        double bound = bound(bestCost, lowerBound);
+        Solution solution = rest(initialBoard, moves, bestDepth, bestIndex, bound, metrics, start);
+        setPath(solution);
+        pathOptimal = pathOptimal && bound == 1;
+        return solution;
+    }
+
+    // Private helper method for the solution made of the given moves followed by the path from one of its boards
+    private Solution rest(Board initialBoard, int[] moves, int count, int index, double bound, SearchMetrics metrics,
+            long start) {
+        int[] moveCodes = Arrays.copyOf(moves, count + pathMoves.length - index);
+        System.arraycopy(pathMoves, index, moveCodes, count, pathMoves.length - index);
+        return Solution.solved(initialBoard, moveCodes, moveCodes.length, bound, metrics, start);
+    }
+
+    // Private helper method for the suboptimality bound of a solution from a lower bound on the optimal cost
+    private static double bound(int cost, int lowerBound) {
+        if ((cost - lowerBound) % 2 != 0) {
+            lowerBound++; // all solutions of a board have the same parity
+        }
+        return lowerBound >= cost ? 1 : (double) cost / Math.max(1, lowerBound);
+    }
+
+    // Private helper method to make the moves of a solution the path
+    private void setPath(Solution solution) {
+        int cost = solution.getCost();
+        pathStates = new long[cost + 1];
+        pathMoves = new int[cost];
+        pathIndex = new LongIntMap();
+        Board board = solution.getInitialBoard();
+        pathStates[0] = board.getPacked();
+        pathIndex.put(pathStates[0], 0);
+        for (int i = 0; i < cost; i++) {
+            pathMoves[i] = solution.getMove(i);
+            board.applyMove(pathMoves[i]);
+            pathStates[i + 1] = board.getPacked();
+            pathIndex.put(pathStates[i + 1], i + 1);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+import java.util.List;
+
+// The search algorithms that can solve a puzzle.
+// All of them return a Solution, or the list of boards from the initial board to the goal board
+// (an empty list when there is no solution), so callers can switch between them freely.
+// All solutions are optimal except those of WEIGHTED_A_STAR and ANYTIME.
+public enum SearchEngine {
+    // A* search, fastest on small puzzles but keeps every generated state in memory
+    A_STAR {
+        @Override
+        public Solution search(Board initialBoard, Board goalBoard, Heuristic heuristic, SearchLimits limits,
+                SearchListener listener) {
+            return AStarSolver.search(initialBoard, goalBoard, heuristic, limits, listener);
+        }
+    },
+    // A* with its states in direct memory, 10 to 12.5 bytes per state and no garbage collection, for searches
+    // too large for A_STAR (up to AStarSolver.DEFAULT_OFF_HEAP_STATES states, or the -XX:MaxDirectMemorySize
+    // of the JVM; the Solution has the OUT_OF_MEMORY status when they run out)
+    A_STAR_OFF_HEAP {
+        @Override
+        public Solution search(Board initialBoard, Board goalBoard, Heuristic heuristic, SearchLimits limits,
+                SearchListener listener) {
+            return AStarSolver.searchOffHeap(initialBoard, goalBoard, heuristic, AStarSolver.DEFAULT_OFF_HEAP_STATES,
+                    limits, listener);
+        }
+    },
+    // Iterative-deepening A*, memory linear in the solution depth
+    IDA_STAR {
+        @Override
+        public Solution search(Board initialBoard, Board goalBoard, Heuristic heuristic, SearchLimits limits,
+                SearchListener listener) {
+            return IDAStarSolver.search(initialBoard, goalBoard, heuristic, limits, listener);
+        }
+
+        @Override
+        public boolean supports(int size) {
+            return true;
+        }
+    },
+    // Hash-distributed parallel A* on all available cores, for single hard puzzles (no progress reports,
+    // the metrics of the workers are only added up at the end)
+    HDA_STAR {
+        @Override
+        public Solution search(Board initialBoard, Board goalBoard, Heuristic heuristic, SearchLimits limits,
+                SearchListener listener) {
+            return ParallelAStarSolver.search(initialBoard, goalBoard, heuristic,
+                    Runtime.getRuntime().availableProcessors(), limits);
+        }
+    },
+    // Bidirectional meet-in-the-middle search (MM), the backward search is guided by the Manhattan distance
+    BIDIRECTIONAL {
+        @Override
+        public Solution search(Board initialBoard, Board goalBoard, Heuristic heuristic, SearchLimits limits,
+                SearchListener listener) {
+            return BidirectionalSolver.search(initialBoard, goalBoard, heuristic, new ManhattanHeuristic(initialBoard),
+                    limits, listener);
+        }
+    },
+    // Weighted A* with f = g + 2h: much faster than A*, the solutions cost at most twice the optimal
+    // (Solution.getSuboptimalityBound tells how far from optimal a solution may be)
+    WEIGHTED_A_STAR {
+        @Override
+        public Solution search(Board initialBoard, Board goalBoard, Heuristic heuristic, SearchLimits limits,
+                SearchListener listener) {
+            return WeightedAStarSolver.search(initialBoard, goalBoard, heuristic, WeightedAStarSolver.DEFAULT_WEIGHT,
+                    limits, listener);
+        }
+    },
+    // Anytime search (ARA*): a weighted A* solution first, improved until it is optimal or the limits stop
+    // it, then the best solution found is returned. Give it a deadline to trade cost for time.
+    ANYTIME {
+        @Override
+        public Solution search(Board initialBoard, Board goalBoard, Heuristic heuristic, SearchLimits limits,
+                SearchListener listener) {
+            return WeightedAStarSolver.searchAnytime(initialBoard, goalBoard, heuristic, limits, listener);
+        }
+    },
+    // Walks the precomputed distance table of the goal, 3x3 only (the heuristic, limits and listener
+    // are not used, a lookup takes microseconds)
+    LOOKUP_TABLE {
+        @Override
+        public Solution search(Board initialBoard, Board goalBoard, Heuristic heuristic, SearchLimits limits,
+                SearchListener listener) {
+            return DistanceTable.search(initialBoard, goalBoard);
+        }
+
+        @Override
+        public boolean supports(int size) {
+            return size == 3;
+        }
+    };
+
+    // Tells whether the engine solves boards of the given size: up to Board.MAX_PACKED_SIZE for all the
+    // engines but IDA_STAR (any size) and LOOKUP_TABLE (3x3 only). The search methods throw
+    // IllegalArgumentException for the other sizes.
+    public boolean supports(int size) {
+        return size <= Board.MAX_PACKED_SIZE;
+    }
+
+    // Solves how to get the initial state to the final state with minimum moves (see above for the exceptions)
+    public List<Board> solve(Board initialBoard, Board goalBoard) {
+        return solve(initialBoard, goalBoard, new ManhattanHeuristic(goalBoard));
+    }
+
+    // Solves how to get the initial state to the final state with minimum moves,
+    // guided by the given heuristic (built for goalBoard)
+    public List<Board> solve(Board initialBoard, Board goalBoard, Heuristic heuristic) {
+        return search(initialBoard, goalBoard, heuristic).toBoardList();
+    }
+
+    // Searches like solve, guided by the Manhattan distance, and returns the moves with the statistics of the search
+    public Solution search(Board initialBoard, Board goalBoard) {
+        return search(initialBoard, goalBoard, new ManhattanHeuristic(goalBoard));
+    }
+
+    // Searches like solve and returns the moves with the statistics of the search
+    public Solution search(Board initialBoard, Board goalBoard, Heuristic heuristic) {
+        return search(initialBoard, goalBoard, heuristic, SearchLimits.NONE, null);
+    }
+
+    // Searches like solve, reporting progress to the listener (null for none), and returns the moves
+    // with the statistics of the search
+    public Solution search(Board initialBoard, Board goalBoard, Heuristic heuristic, SearchListener listener) {
+        return search(initialBoard, goalBoard, heuristic, SearchLimits.NONE, listener);
+    }
+
+    // Searches like search(initialBoard, goalBoard, heuristic, listener) until the goal is reached or
+    // one of the limits is (the Solution then has the NODE_LIMIT or TIMEOUT status)
+    public abstract Solution search(Board initialBoard, Board goalBoard, Heuristic heuristic, SearchLimits limits,
+            SearchListener listener);
+}
@@ -0,0 +1,91 @@
+import java.util.concurrent.TimeUnit;
+
+// Bounds on the work of one search: a number of expanded nodes and a deadline.
+// A search that reaches a bound gives up and returns a Solution with the NODE_LIMIT or TIMEOUT
+// status instead of running on. The deadline is a point in time, so the time a request waits
+// before its search starts counts as well. Limits are immutable and can be shared.
+public final class SearchLimits {
+    // No bounds at all
+    public static final SearchLimits NONE = new SearchLimits(Long.MAX_VALUE, 0, false);
+
+    // The clock is read every CLOCK_INTERVAL expansions only (a power of two)
+    private static final int CLOCK_INTERVAL = 1024;
+
+    private final long maxExpanded;
+    private final long deadlineNanos; // in System.nanoTime() time, when hasDeadline
+    private final boolean hasDeadline;
+
+    private SearchLimits(long maxExpanded, long deadlineNanos, boolean hasDeadline) {
+        this.maxExpanded = maxExpanded;
+        this.deadlineNanos = deadlineNanos;
+        this.hasDeadline = hasDeadline;
+    }
+
+    // Gets limits that stop a search after maxExpanded expanded nodes.
+    public static SearchLimits nodes(long maxExpanded) {
+        return NONE.withNodes(maxExpanded);
+    }
+
+    // Gets limits that stop a search once the timeout has passed from now.
+    public static SearchLimits timeout(long timeout, TimeUnit unit) {
+        return NONE.withTimeout(timeout, unit);
+    }
+
+    // Gets these limits with the node limit replaced.
+    public SearchLimits withNodes(long maxExpanded) {
+        if (maxExpanded < 0) {
+            throw new IllegalArgumentException("maxExpanded must not be negative, got " + maxExpanded);
+        }
+        return new SearchLimits(maxExpanded, deadlineNanos, hasDeadline);
+    }
+
+    // Gets these limits with the deadline replaced by the timeout from now.
+    public SearchLimits withTimeout(long timeout, TimeUnit unit) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("timeout must not be negative, got " + timeout);
+        }
+        return new SearchLimits(maxExpanded, System.nanoTime() + unit.toNanos(timeout), true);
+    }
+
+    public long getMaxExpanded() {
+        return maxExpanded;
+    }
+
+    public boolean hasDeadline() {
+        return hasDeadline;
+    }
+
+    // Gets the nanoseconds left before the deadline (negative once it passed), Long.MAX_VALUE without one.
+    public long getRemainingNanos() {
+        return hasDeadline ? deadlineNanos - System.nanoTime() : Long.MAX_VALUE;
+    }
+
+    // Gets the status that ends a search about to expand its next node after expanded ones, or null
+    // to go on. Called by the solvers before every expansion, so it is cheap without a bound.
+    Solution.Status check(long expanded) {
+        if (expanded >= maxExpanded) {
+            return Solution.Status.NODE_LIMIT;
+        }
+        if (hasDeadline && (expanded & (CLOCK_INTERVAL - 1)) == 0) {
+            return checkNow(expanded);
+        }
+        return null;
+    }
+
+    // Like check, but always reads the clock (for solvers that check every few hundred expansions)
+    Solution.Status checkNow(long expanded) {
+        if (expanded >= maxExpanded) {
+            return Solution.Status.NODE_LIMIT;
+        }
+        if (hasDeadline && System.nanoTime() - deadlineNanos >= 0) {
+            return Solution.Status.TIMEOUT;
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchLimits[" + (maxExpanded == Long.MAX_VALUE ? "no node limit" : maxExpanded + " nodes")
+                + (hasDeadline ? ", " + TimeUnit.NANOSECONDS.toMillis(getRemainingNanos()) + " ms left" : "") + "]";
+    }
+}
@@ -0,0 +1,8 @@
+// Watches a search while it runs.
+// The solvers call it every SearchMetrics.PROGRESS_INTERVAL expansions from the searching thread, so
+// it should return quickly. Searching without a listener (null) skips the calls altogether.
+public interface SearchListener {
+    // Receives the metrics of the running search so far; they keep changing after the call returns,
+    // take a copy to keep them.
+    void onProgress(SearchMetrics metrics);
+}
@@ -0,0 +1,198 @@
+// Counters describing the work of one search, or of many searches added together.
+// The solvers fill them in as they go, which costs a few increments per node; a SearchListener can
+// look at them while the search runs and the Solution keeps them when it ends.
+public class SearchMetrics {
+    // Number of expansions between two calls of SearchListener.onProgress
+    public static final int PROGRESS_INTERVAL = 1 << 16;
+
+    private long searches; // Number of searches added together in these metrics
+    private long expanded; // Nodes whose neighbors were generated
+    private long generated; // Neighbors generated (not counting the reverse of the move that led to a node)
+    private long duplicates; // Generated neighbors dropped because their state was already reached as cheaply
+    private long reopened; // Closed states opened again after a cheaper path to them was found
+    private long peakOpen; // Largest open list size (the largest of all the searches when added)
+    private long peakClosed; // Largest closed list size
+    private long solutionMoves; // Moves of the solutions found
+    private long elapsedNanos; // Time the searches took
+    private int fBound; // Largest f-value the search has expanded up to (0 if it does not report one)
+
+    // Constructs the metrics of one search, with all counters at 0.
+    public SearchMetrics() {
+        searches = 1;
+    }
+
+    // Constructs metrics with the given counters (peaks are the largest of the searches).
+    public SearchMetrics(long searches, long expanded, long generated, long duplicates, long reopened,
+            long peakOpen, long peakClosed, long solutionMoves, long elapsedNanos) {
+        this.searches = searches;
+        this.expanded = expanded;
+        this.generated = generated;
+        this.duplicates = duplicates;
+        this.reopened = reopened;
+        this.peakOpen = peakOpen;
+        this.peakClosed = peakClosed;
+        this.solutionMoves = solutionMoves;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    // Creates empty metrics to add the metrics of many searches to.
+    public static SearchMetrics total() {
+        return new SearchMetrics(0, 0, 0, 0, 0, 0, 0, 0, 0);
+    }
+
+    // Adds the metrics of other searches to these (counters are summed, peaks take the largest).
+    public synchronized void add(SearchMetrics other) {
+        SearchMetrics snapshot = other.copy();
+        searches += snapshot.searches;
+        expanded += snapshot.expanded;
+        generated += snapshot.generated;
+        duplicates += snapshot.duplicates;
+        reopened += snapshot.reopened;
+        peakOpen = Math.max(peakOpen, snapshot.peakOpen);
+        peakClosed = Math.max(peakClosed, snapshot.peakClosed);
+        solutionMoves += snapshot.solutionMoves;
+        elapsedNanos += snapshot.elapsedNanos;
+    }
+
+    // Gets a copy of the current counters.
+    public synchronized SearchMetrics copy() {
+        SearchMetrics copy = new SearchMetrics(searches, expanded, generated, duplicates, reopened,
+                peakOpen, peakClosed, solutionMoves, elapsedNanos);
+        copy.fBound = fBound;
+        return copy;
+    }
+
+    // Methods used by the solvers while searching (only from the searching thread)
+
+    void expanded() {
+        expanded++;
+    }
+
+    void generated() {
+        generated++;
+    }
+
+    void duplicate() {
+        duplicates++;
+    }
+
+    void reopened() {
+        reopened++;
+    }
+
+    void open(long size) {
+        if (size > peakOpen) {
+            peakOpen = size;
+        }
+    }
+
+    void closed(long size) {
+        if (size > peakClosed) {
+            peakClosed = size;
+        }
+    }
+
+    void fBound(int f) {
+        if (f > fBound) {
+            fBound = f;
+        }
+    }
+
+    // Records the end of the search
+    void finish(int moves, long elapsedNanos) {
+        solutionMoves = Math.max(moves, 0);
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    // Adds the counters of one part of a search (a worker thread) to these
+    synchronized void addPart(long expanded, long generated, long duplicates, long reopened, long peakOpen, long peakClosed) {
+        this.expanded += expanded;
+        this.generated += generated;
+        this.duplicates += duplicates;
+        this.reopened += reopened;
+        this.peakOpen += peakOpen; // the parts hold their lists at the same time
+        this.peakClosed += peakClosed;
+    }
+
+    // Getters for the counters
+
+    public long getSearches() {
+        return searches;
+    }
+
+    public long getExpanded() {
+        return expanded;
+    }
+
+    public long getGenerated() {
+        return generated;
+    }
+
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    public long getReopened() {
+        return reopened;
+    }
+
+    public long getPeakOpen() {
+        return peakOpen;
+    }
+
+    public long getPeakClosed() {
+        return peakClosed;
+    }
+
+    public long getSolutionMoves() {
+        return solutionMoves;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    // Gets the largest f-value expanded so far, a lower bound on the solution cost for A*, off-heap A*
+    // and IDA* (0 for the other searches and for metrics added together).
+    public int getFBound() {
+        return fBound;
+    }
+
+    // Gets the effective branching factor b*: the branching factor a uniform tree as deep as the
+    // solution would need to hold the generated nodes, N + 1 = 1 + b* + b*^2 + ... + b*^d.
+    // Averages over the searches when metrics were added together; 0 if nothing was generated.
+    public double getEffectiveBranchingFactor() {
+        if (searches == 0 || solutionMoves == 0 || generated == 0) {
+            return 0;
+        }
+        double nodes = (double) generated / searches + 1;
+        double depth = (double) solutionMoves / searches;
+        double low = 1;
+        double high = Math.max(2, nodes);
+        for (int i = 0; i < 100; i++) {
+            double middle = (low + high) / 2;
+            if (treeSize(middle, depth) < nodes) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+        return (low + high) / 2;
+    }
+
+    // Private helper method for 1 + b + b^2 + ... + b^depth (depth may be fractional for averages)
+    private static double treeSize(double b, double depth) {
+        if (b - 1 < 1e-9) {
+            return depth + 1;
+        }
+        return (Math.pow(b, depth + 1) - 1) / (b - 1);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d searches: %d expanded, %d generated, %d duplicates, %d reopened, "
+                + "peak open %d, peak closed %d, b* %.3f, %.1f ms",
+                searches, expanded, generated, duplicates, reopened, peakOpen, peakClosed,
+                getEffectiveBranchingFactor(), elapsedNanos / 1e6);
+    }
+}
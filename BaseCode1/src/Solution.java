@@ -0,0 +1,198 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+// The result of a search: the moves from the initial board to the goal board, packed 2 bits per
+// move (4 moves per byte), with the status and the metrics of the search.
+// Boards are only made when they are asked for, by replaying the moves from the initial board;
+// iterating over a solution makes one board at a time.
+public class Solution implements Iterable<Board> {
+    // How a search ended
+    public enum Status {
+        SOLVED, // the moves lead to the goal
+        UNSOLVABLE, // the goal cannot be reached from the initial board
+        NODE_LIMIT, // the search gave up after expanding the nodes its SearchLimits allowed
+        TIMEOUT, // the search gave up at the deadline of its SearchLimits
+        OUT_OF_MEMORY // the search gave up when its states filled the memory it was given
+    }
+
+    private final Board initialBoard;
+    private final byte[] moves; // move i is in bits 2 * (i % 4) of moves[i / 4]
+    private final int length; // Number of moves
+    private final Status status;
+    private final SearchMetrics metrics; // The work the search did
+    private final double bound; // The cost is at most bound times the optimal cost
+
+    private Solution(Board initialBoard, byte[] moves, int length, Status status, SearchMetrics metrics, double bound) {
+        this.initialBoard = initialBoard.copy();
+        this.moves = moves;
+        this.length = length;
+        this.status = status;
+        this.metrics = metrics;
+        this.bound = bound;
+    }
+
+    // Creates an optimal solution from the first count move codes of an array.
+    // The metrics are completed with the solution length and the time since startNanos (System.nanoTime).
+    public static Solution solved(Board initialBoard, int[] moveCodes, int count, SearchMetrics metrics, long startNanos) {
+        return solved(initialBoard, moveCodes, count, 1, metrics, startNanos);
+    }
+
+    // Creates a solution that costs at most bound times the optimal cost from the first count move codes of an array.
+    public static Solution solved(Board initialBoard, int[] moveCodes, int count, double bound, SearchMetrics metrics,
+            long startNanos) {
+        if (!(bound >= 1)) {
+            throw new IllegalArgumentException("The suboptimality bound must be at least 1, got " + bound);
+        }
+        byte[] packed = new byte[(count + 3) / 4];
+        for (int i = 0; i < count; i++) {
+            packed[i >>> 2] |= (byte) (moveCodes[i] << (2 * (i & 3)));
+        }
+        metrics.finish(count, System.nanoTime() - startNanos);
+        return new Solution(initialBoard, packed, count, Status.SOLVED, metrics, bound);
+    }
+
+    // Creates an optimal solution from the parent chain of a goal node.
+    public static Solution solved(Board initialBoard, Node goalNode, SearchMetrics metrics, long startNanos) {
+        return solved(initialBoard, goalNode, 1, metrics, startNanos);
+    }
+
+    // Creates a solution that costs at most bound times the optimal cost from the parent chain of a
+    // goal node, in one pass from the goal back to the root.
+    public static Solution solved(Board initialBoard, Node goalNode, double bound, SearchMetrics metrics, long startNanos) {
+        int count = 0;
+        for (Node node = goalNode; node.getParent() != null; node = node.getParent()) {
+            count++;
+        }
+        int[] moveCodes = new int[count];
+        int index = count;
+        for (Node node = goalNode; node.getParent() != null; node = node.getParent()) {
+            moveCodes[--index] = node.getMove();
+        }
+        return solved(initialBoard, moveCodes, count, bound, metrics, startNanos);
+    }
+
+    // Creates the result of a search that proved the goal cannot be reached.
+    public static Solution unsolvable(Board initialBoard, SearchMetrics metrics, long startNanos) {
+        metrics.finish(0, System.nanoTime() - startNanos);
+        return new Solution(initialBoard, new byte[0], 0, Status.UNSOLVABLE, metrics, 1);
+    }
+
+    // Creates the result of a search that reached one of its limits (or its memory) before finding a solution.
+    public static Solution stopped(Board initialBoard, Status status, SearchMetrics metrics, long startNanos) {
+        if (status == Status.SOLVED || status == Status.UNSOLVABLE) {
+            throw new IllegalArgumentException("Not a limit status: " + status);
+        }
+        metrics.finish(0, System.nanoTime() - startNanos);
+        return new Solution(initialBoard, new byte[0], 0, status, metrics, 1);
+    }
+
+    // Getters for the result
+
+    public Status getStatus() {
+        return status;
+    }
+
+    // Checks if the moves lead to the goal.
+    public boolean isSolved() {
+        return status == Status.SOLVED;
+    }
+
+    // Gets the number of moves (the cost of the solution).
+    public int getCost() {
+        return length;
+    }
+
+    // Gets the bound on the cost: the solution costs at most this many times the optimal cost
+    // (1 for an optimal solution, more for the weighted and anytime searches).
+    public double getSuboptimalityBound() {
+        return bound;
+    }
+
+    // Checks if the moves lead to the goal with the fewest moves possible.
+    public boolean isOptimal() {
+        return isSolved() && bound == 1;
+    }
+
+    // Gets the code of move i (see the Board.MOVE_ constants).
+    public int getMove(int i) {
+        if (i < 0 || i >= length) {
+            throw new IndexOutOfBoundsException("Move " + i + " of " + length);
+        }
+        return (moves[i >>> 2] >>> (2 * (i & 3))) & 3;
+    }
+
+    // Gets the moves as a string of labels, e.g. "RDLU".
+    public String getMoveString() {
+        StringBuilder labels = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            labels.append(Board.moveLabel(getMove(i)));
+        }
+        return labels.toString();
+    }
+
+    public Board getInitialBoard() {
+        return initialBoard.copy();
+    }
+
+    public SearchMetrics getMetrics() {
+        return metrics;
+    }
+
+    // Methods for the boards along the solution
+
+    // Iterates over the boards from the initial board to the goal board (nothing if not solved).
+    // Every board is new and has its move label set.
+    @Override
+    public Iterator<Board> iterator() {
+        return new Iterator<Board>() {
+            private Board current;
+            private int next = isSolved() ? 0 : length + 1; // index of the board returned by next()
+
+            @Override
+            public boolean hasNext() {
+                return next <= length;
+            }
+
+            @Override
+            public Board next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (current == null) {
+                    current = initialBoard.copy();
+                } else {
+                    int move = getMove(next - 1);
+                    current = current.copy();
+                    current.applyMove(move);
+                    current.setMove(Board.moveLabel(move));
+                }
+                next++;
+                return current;
+            }
+        };
+    }
+
+    // Gets all the boards in the form the solvers used to return: the list from the initial board to
+    // the goal board, each linked to the one before it, or an empty list when there is no solution.
+    public List<Board> toBoardList() {
+        List<Board> solutionPath = new ArrayList<>(isSolved() ? length + 1 : 0);
+        Board previous = null;
+        for (Board board : this) {
+            board.setParent(previous);
+            solutionPath.add(board);
+            previous = board;
+        }
+        return solutionPath;
+    }
+
+    @Override
+    public String toString() {
+        if (!isSolved()) {
+            return "Solution[" + status + "]";
+        }
+        return "Solution[" + length + " moves " + getMoveString()
+                + (bound > 1 ? String.format(", at most %.3f x optimal", bound) : "") + "]";
+    }
+}
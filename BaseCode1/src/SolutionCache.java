@@ -0,0 +1,214 @@
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// A bounded, thread-safe cache of optimal solutions in front of a search engine.
+// Entries are keyed by the packed initial board and the packed goal board and hold the solution
+// as a string of move labels ("UDLR"). Every board on an optimal path is itself solved optimally
+// by the rest of the path, so storing a solution also stores all its suffixes: each intermediate
+// board gets an entry that shares the move string of the whole solution and starts at an offset.
+// Boards are keyed by their canonical form under the symmetries of the goal (see BoardSymmetry), so
+// twins share one entry; the moves are turned to the orientation of the board that asked for them.
+// When the cache is full the least recently used entry is evicted.
+// Boards larger than 4x4 have no packed form and are solved without the cache.
+public class SolutionCache {
+    private static final String MOVE_LABELS = "UDLR"; // the label of move code m is MOVE_LABELS.charAt(m)
+
+    private final int maxEntries;
+    private final LinkedHashMap<Key, Entry> entries; // in access order, the eldest is the least recently used
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    // Constructs a cache that holds at most maxEntries boards (intermediate boards count as well).
+    public SolutionCache(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be at least 1, got " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > SolutionCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // Solves how to get the initial state to the final state with minimum moves, from the cache if
+    // possible and otherwise with the engine (the solution is then added to the cache).
+    public List<Board> solve(Board initialBoard, Board goalBoard, SearchEngine engine, Heuristic heuristic) {
+        return search(initialBoard, goalBoard, engine, heuristic).toBoardList();
+    }
+
+    // Searches like solve and returns the moves as a Solution (with no expanded nodes for a cache hit).
+    public Solution search(Board initialBoard, Board goalBoard, SearchEngine engine, Heuristic heuristic) {
+        return search(initialBoard, goalBoard, engine, heuristic, SearchLimits.NONE);
+    }
+
+    // Searches like search(initialBoard, goalBoard, engine, heuristic), giving the engine the limits on a miss.
+    public Solution search(Board initialBoard, Board goalBoard, SearchEngine engine, Heuristic heuristic,
+            SearchLimits limits) {
+        long start = System.nanoTime();
+        String moves = getMoves(initialBoard, goalBoard);
+        if (moves != null) {
+            int[] moveCodes = new int[moves.length()];
+            for (int i = 0; i < moveCodes.length; i++) {
+                moveCodes[i] = MOVE_LABELS.indexOf(moves.charAt(i));
+            }
+            return Solution.solved(initialBoard, moveCodes, moveCodes.length, new SearchMetrics(), start);
+        }
+        Solution solution = engine.search(initialBoard, goalBoard, heuristic, limits, null);
+        put(solution, goalBoard);
+        return solution;
+    }
+
+    // Gets the cached solution from the initial board to the goal board as move labels,
+    // or null if it is not cached.
+    public String getMoves(Board initialBoard, Board goalBoard) {
+        if (!initialBoard.isPackable() || initialBoard.getSize() != goalBoard.getSize()) {
+            return null;
+        }
+        BoardSymmetry symmetry = BoardSymmetry.forGoal(goalBoard);
+        long state = initialBoard.getPacked();
+        int toCanonical = symmetry.canonicalSymmetry(state);
+        Key key = new Key(symmetry.transform(state, toCanonical), goalBoard.getPacked());
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry == null) {
+                misses++;
+                return null;
+            }
+            hits++;
+        }
+        if (entry.symmetry == toCanonical) {
+            return entry.moves.substring(entry.offset); // same orientation as the cached board
+        }
+        // cached board -> canonical form -> this board
+        int fromCanonical = symmetry.inverse(toCanonical);
+        char[] moves = new char[entry.moves.length() - entry.offset];
+        for (int i = 0; i < moves.length; i++) {
+            int move = MOVE_LABELS.indexOf(entry.moves.charAt(entry.offset + i));
+            moves[i] = MOVE_LABELS.charAt(symmetry.mapMove(fromCanonical, symmetry.mapMove(entry.symmetry, move)));
+        }
+        return new String(moves);
+    }
+
+    // Adds a solution and all its suffixes to the cache. Unsolved results and solutions that may not
+    // be optimal (from the weighted searches) are not cached.
+    public void put(Solution solution, Board goalBoard) {
+        Board initialBoard = solution.getInitialBoard();
+        if (!solution.isOptimal() || !goalBoard.isPackable() || initialBoard.getSize() != goalBoard.getSize()) {
+            return;
+        }
+        String moves = solution.getMoveString();
+        long goalState = goalBoard.getPacked();
+        BoardSymmetry symmetry = BoardSymmetry.forGoal(goalBoard);
+        Key[] keys = new Key[solution.getCost() + 1];
+        Entry[] values = new Entry[keys.length];
+        int i = 0;
+        for (Board board : solution) {
+            long state = board.getPacked();
+            int toCanonical = symmetry.canonicalSymmetry(state);
+            keys[i] = new Key(symmetry.transform(state, toCanonical), goalState);
+            values[i] = new Entry(moves, i, toCanonical);
+            i++;
+        }
+        synchronized (entries) {
+            // from the goal backwards, so the initial board ends up the most recently used
+            for (i = keys.length - 1; i >= 0; i--) {
+                entries.put(keys[i], values[i]);
+            }
+        }
+    }
+
+    // Removes all entries (the counters are kept).
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    // Getters for the size and the counters
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getHits() {
+        synchronized (entries) {
+            return hits;
+        }
+    }
+
+    public long getMisses() {
+        synchronized (entries) {
+            return misses;
+        }
+    }
+
+    public long getEvictions() {
+        synchronized (entries) {
+            return evictions;
+        }
+    }
+
+    @Override
+    public String toString() {
+        synchronized (entries) {
+            return "SolutionCache[" + entries.size() + "/" + maxEntries + " entries, " + hits + " hits, "
+                    + misses + " misses, " + evictions + " evictions]";
+        }
+    }
+
+    // The cache key: a packed board and the packed goal it is solved towards
+    private static final class Key {
+        private final long board;
+        private final long goal;
+
+        Key(long board, long goal) {
+            this.board = board;
+            this.goal = goal;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return board == key.board && goal == key.goal;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(board, goal);
+        }
+    }
+
+    // A cached solution: the moves from the board to the goal are moves.substring(offset),
+    // the move string is shared by all the boards of one solution. The symmetry turns the board
+    // the moves were found for into the canonical board of the key.
+    private static final class Entry {
+        private final String moves;
+        private final int offset;
+        private final int symmetry;
+
+        Entry(String moves, int offset, int symmetry) {
+            this.moves = moves;
+            this.offset = offset;
+            this.symmetry = symmetry;
+        }
+    }
+}
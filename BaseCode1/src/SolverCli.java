@@ -0,0 +1,184 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+// Solves puzzles from the command line without a screen: no drawing class is ever loaded.
+//
+// Usage: java SolverCli [options] [input file]
+//   --engine NAME      one of the SearchEngine values (default A_STAR)
+//   --heuristic NAME   one of the HeuristicType values (default MANHATTAN)
+//   --goal t,t,...     the goal tiles, row by row with 0 for the empty cell
+//                      (default 1, 2, ..., n*n-1 followed by the empty cell, for every size)
+//   --threads N        number of puzzles solved at the same time (default all cores)
+//   --cache N          keep up to N solutions for repeated puzzles (default no cache)
+//   --unordered        write the results as they complete instead of in input order
+//
+// Reads one board per line from the input file, or from stdin without one (or with "-"): the tiles
+// row by row, separated by commas or spaces, 0 for the empty cell. Blank lines and lines starting
+// with # are skipped. Every board gets one tab separated output line:
+//   index  board  status  cost  moves  expanded  generated  milliseconds
+// where index counts the boards from 0 and cost and moves are "-" for unsolved boards. Invalid
+// lines, and boards of a size the engine or the heuristic does not support, are reported on stderr
+// with their line number and skipped, a summary follows at the end.
+// The input is read as the solvers keep up, a few boards per thread at a time, so files of any
+// size run in constant memory.
+public class SolverCli {
+    private static final String USAGE = "Usage: java SolverCli [--engine NAME] [--heuristic NAME] [--goal t,t,...]"
+            + " [--threads N] [--cache N] [--unordered] [input file]";
+
+    private final Board fixedGoal; // null when every size uses its standard goal
+    private final BatchSolver solver;
+    private final Board[] standardGoals = new Board[16]; // size -> standard goal, made on first use
+    private long lineNumber;
+    private long invalidLines;
+    private long unsolved;
+
+    private SolverCli(Board fixedGoal, BatchSolver solver) {
+        this.fixedGoal = fixedGoal;
+        this.solver = solver;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        SearchEngine engine = SearchEngine.A_STAR;
+        HeuristicType heuristicType = HeuristicType.MANHATTAN;
+        Board goalBoard = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int cacheSize = 0;
+        boolean ordered = true;
+        String input = "-";
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--engine":
+                        engine = SearchEngine.valueOf(args[++i]);
+                        break;
+                    case "--heuristic":
+                        heuristicType = HeuristicType.valueOf(args[++i]);
+                        break;
+                    case "--goal":
+                        goalBoard = Board.parse(args[++i]);
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    case "--cache":
+                        cacheSize = Integer.parseInt(args[++i]);
+                        break;
+                    case "--unordered":
+                        ordered = false;
+                        break;
+                    default:
+                        if (args[i].startsWith("--") || i != args.length - 1) {
+                            throw new IllegalArgumentException("Unknown option " + args[i]);
+                        }
+                        input = args[i];
+                }
+            }
+            if (threads < 1) {
+                throw new IllegalArgumentException("--threads must be at least 1, got " + threads);
+            }
+            if (cacheSize < 0) {
+                throw new IllegalArgumentException("--cache must not be negative, got " + cacheSize);
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            System.err.println(e instanceof ArrayIndexOutOfBoundsException ? "Missing option value" : e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        SolutionCache cache = cacheSize > 0 ? new SolutionCache(cacheSize) : null;
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+        try (BufferedReader reader = input.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(input), StandardCharsets.UTF_8);
+                BatchSolver solver = new BatchSolver(engine, heuristicType, threads, cache)) {
+            SolverCli cli = new SolverCli(goalBoard, solver);
+            Stream<Puzzle> puzzles = reader.lines().map(cli::toPuzzle).filter(Objects::nonNull);
+            BatchSolver.SolutionListener writer = (index, puzzle, solution) -> cli.write(out, index, solution);
+            if (ordered) {
+                solver.searchStreamInOrder(puzzles, writer);
+            } else {
+                solver.searchStream(puzzles, writer);
+            }
+            out.flush();
+            SearchMetrics metrics = solver.getMetrics();
+            System.err.println(metrics.getSearches() + " boards, " + cli.unsolved + " unsolved, "
+                    + cli.invalidLines + " invalid lines");
+            System.err.println(metrics);
+        }
+    }
+
+    // Private helper method to make the puzzle of an input line, null for lines without one
+    private Puzzle toPuzzle(String line) {
+        lineNumber++;
+        line = line.trim();
+        if (line.isEmpty() || line.startsWith("#")) {
+            return null;
+        }
+        try {
+            Board board = Board.parse(line);
+            Board goal = goalFor(board.getSize());
+            if (!solver.getEngine().supports(board.getSize())) {
+                throw new IllegalArgumentException(solver.getEngine() + " does not solve " + board.getSize() + "x"
+                        + board.getSize() + " boards");
+            }
+            solver.heuristicFor(goal); // built here so a heuristic that rejects the goal rejects the line
+            return new Puzzle(board, goal);
+        } catch (IllegalArgumentException e) {
+            invalidLines++;
+            System.err.println("line " + lineNumber + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Private helper method to get the goal of the boards of a size
+    private Board goalFor(int size) {
+        if (fixedGoal != null) {
+            if (fixedGoal.getSize() != size) {
+                throw new IllegalArgumentException("Expected a " + fixedGoal.getSize() + "x" + fixedGoal.getSize()
+                        + " board like the goal, got " + size + "x" + size);
+            }
+            return fixedGoal;
+        }
+        if (size >= standardGoals.length) {
+            throw new IllegalArgumentException("Boards up to " + (standardGoals.length - 1) + "x"
+                    + (standardGoals.length - 1) + " are supported, got " + size + "x" + size);
+        }
+        if (standardGoals[size] == null) {
+            standardGoals[size] = Board.standardGoal(size);
+        }
+        return standardGoals[size];
+    }
+
+    // Private helper method to write the output line of a result (called by one thread at a time)
+    private synchronized void write(PrintWriter out, long index, Solution solution) {
+        Board board = solution.getInitialBoard();
+        StringBuilder line = new StringBuilder(64).append(index).append('\t');
+        for (int cell = 0; cell < board.getSize() * board.getSize(); cell++) {
+            if (cell > 0) {
+                line.append(',');
+            }
+            line.append(board.getTile(cell));
+        }
+        line.append('\t').append(solution.getStatus()).append('\t');
+        if (solution.isSolved()) {
+            line.append(solution.getCost()).append('\t').append(solution.getMoveString());
+        } else {
+            unsolved++;
+            line.append("-\t-");
+        }
+        SearchMetrics metrics = solution.getMetrics();
+        line.append('\t').append(metrics.getExpanded())
+                .append('\t').append(metrics.getGenerated())
+                .append('\t').append(String.format("%.3f", metrics.getElapsedNanos() / 1e6));
+        out.println(line);
+    }
+}
@@ -0,0 +1,393 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// A local HTTP service that solves puzzles for other programs, so they do not pay for a JVM start
+// and a cold heuristic on every call. Built on the JDK HttpServer, no drawing class is loaded.
+//
+//   GET or POST /solve?board=t,t,...[&goal=t,t,...][&maxNodes=N][&timeoutMs=N]
+//       solves one board (given in the board parameter or as the request body) and answers
+//       {"status":"SOLVED","cost":21,"moves":"RDLU...","expanded":771,"generated":1302,"millis":3.412}
+//       with 200 for every search result (see Solution.Status), 400 for an invalid request and 503
+//       when the queue is full. Engines that may return longer solutions (the weighted ones) add a
+//       "bound": the solution costs at most that many times the optimal one. Without a goal the
+//       server goal is used, or the standard goal of the size.
+//   GET /stats
+//       the request counters, the metrics of all searches and the cache.
+//
+// Requests wait in a bounded queue. One dispatcher thread takes them in micro-batches: after the
+// first request it waits a short window for more, then hands the batch to the BatchSolver, where
+// identical requests of a batch share one search. At most two searches per solver thread are handed
+// over at a time; when the solvers fall behind, the dispatcher stops taking requests, the queue fills
+// up and new requests are turned away with 503 right away instead of waiting without bound.
+// The timeout of a request runs from its arrival, so time spent in the queue counts.
+// The heuristics and the solution cache of the BatchSolver are shared by all requests.
+//
+// Usage: java SolverServer [--port N] [--engine NAME] [--heuristic NAME] [--goal t,t,...]
+//                          [--threads N] [--cache N] [--queue N] [--batch N] [--timeout MS] [--max-nodes N]
+public class SolverServer implements AutoCloseable {
+    private static final String USAGE = "Usage: java SolverServer [--port N] [--engine NAME] [--heuristic NAME]"
+            + " [--goal t,t,...] [--threads N] [--cache N] [--queue N] [--batch N] [--timeout MS] [--max-nodes N]";
+    private static final long BATCH_WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(1); // wait for more requests
+
+    private final HttpServer server;
+    private final ExecutorService exchangeThreads; // parse requests and queue them, never wait for a search
+    private final BatchSolver solver;
+    private final SolutionCache cache; // only for the statistics, null when there is none
+    private final Board goalBoard; // null when every size uses its standard goal
+    private final long timeoutMillis; // for requests that do not give one, and the largest one may ask for
+    private final long maxNodes; // likewise
+    private final ArrayBlockingQueue<Request> queue;
+    private final int maxBatch;
+    private final Semaphore searchSlots; // searches handed to the solver and not finished yet
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong shared = new AtomicLong(); // requests answered by the search of an identical one
+
+    // Constructs a server on the given address (port 0 picks a free port, see getPort) that solves with
+    // the solver; call start to accept requests. goalBoard is the goal of requests without one (null
+    // for the standard goal of their size), its heuristic is built right away. timeoutMillis and
+    // maxNodes bound the searches (0 for no bound), queueCapacity the requests waiting for a search,
+    // maxBatch the requests the dispatcher takes at a time.
+    public SolverServer(InetSocketAddress address, BatchSolver solver, SolutionCache cache, Board goalBoard,
+            long timeoutMillis, long maxNodes, int queueCapacity, int maxBatch) throws IOException {
+        if (queueCapacity < 1 || maxBatch < 1) {
+            throw new IllegalArgumentException("The queue capacity and batch size must be at least 1");
+        }
+        this.solver = solver;
+        this.cache = cache;
+        this.goalBoard = goalBoard;
+        this.timeoutMillis = timeoutMillis;
+        this.maxNodes = maxNodes > 0 ? maxNodes : Long.MAX_VALUE;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatch = maxBatch;
+        this.searchSlots = new Semaphore(solver.getParallelism() * 2);
+        if (goalBoard != null) {
+            solver.heuristicFor(goalBoard); // warm it up before the first request
+        }
+        exchangeThreads = Executors.newFixedThreadPool(2);
+        server = HttpServer.create(address, 0);
+        server.setExecutor(exchangeThreads);
+        server.createContext("/solve", this::handleSolve);
+        server.createContext("/stats", this::handleStats);
+        dispatcher = new Thread(this::dispatch, "solver-dispatcher");
+        dispatcher.setDaemon(true);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = 8080;
+        SearchEngine engine = SearchEngine.A_STAR;
+        HeuristicType heuristicType = HeuristicType.MANHATTAN;
+        Board goalBoard = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int cacheSize = 100_000;
+        int queueCapacity = 1024;
+        int maxBatch = 64;
+        long timeoutMillis = 10_000;
+        long maxNodes = 0;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--port":
+                        port = Integer.parseInt(args[++i]);
+                        break;
+                    case "--engine":
+                        engine = SearchEngine.valueOf(args[++i]);
+                        break;
+                    case "--heuristic":
+                        heuristicType = HeuristicType.valueOf(args[++i]);
+                        break;
+                    case "--goal":
+                        goalBoard = Board.parse(args[++i]);
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    case "--cache":
+                        cacheSize = Integer.parseInt(args[++i]);
+                        break;
+                    case "--queue":
+                        queueCapacity = Integer.parseInt(args[++i]);
+                        break;
+                    case "--batch":
+                        maxBatch = Integer.parseInt(args[++i]);
+                        break;
+                    case "--timeout":
+                        timeoutMillis = Long.parseLong(args[++i]);
+                        break;
+                    case "--max-nodes":
+                        maxNodes = Long.parseLong(args[++i]);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            System.err.println(e instanceof ArrayIndexOutOfBoundsException ? "Missing option value" : e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        SolutionCache cache = cacheSize > 0 ? new SolutionCache(cacheSize) : null;
+        BatchSolver solver = new BatchSolver(engine, heuristicType, threads, cache);
+        SolverServer server = new SolverServer(new InetSocketAddress(port), solver, cache, goalBoard,
+                timeoutMillis, maxNodes, queueCapacity, maxBatch);
+        server.start();
+        System.err.println("Solving with " + engine + " and " + heuristicType + " on port " + server.getPort());
+    }
+
+    // Starts accepting requests.
+    public void start() {
+        dispatcher.start();
+        server.start();
+    }
+
+    // Gets the port the server listens on.
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // Stops accepting requests; requests still queued are answered with 503. The solver is not closed.
+    @Override
+    public void close() {
+        running = false;
+        server.stop(0);
+        dispatcher.interrupt();
+        try {
+            dispatcher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Request request;
+        while ((request = queue.poll()) != null) {
+            respond(request.exchange, 503, "{\"error\":\"The server is shutting down\"}");
+        }
+        exchangeThreads.shutdown();
+    }
+
+    // Handlers of the HTTP requests
+
+    private void handleSolve(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("GET") && !exchange.getRequestMethod().equals("POST")) {
+            respond(exchange, 405, error("Use GET or POST"));
+            return;
+        }
+        Request request;
+        try {
+            Map<String, String> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+            String board = parameters.get("board");
+            if (board == null) {
+                board = readBody(exchange.getRequestBody());
+            }
+            Board initialBoard = Board.parse(board);
+            Board goal = parameters.containsKey("goal") ? Board.parse(parameters.get("goal"))
+                    : goalBoard != null ? goalBoard : Board.standardGoal(initialBoard.getSize());
+            if (goal.getSize() != initialBoard.getSize()) {
+                throw new IllegalArgumentException("The board and the goal must have the same size");
+            }
+            long nodes = Math.min(Long.parseLong(parameters.getOrDefault("maxNodes", "0")), maxNodes);
+            long timeout = Long.parseLong(parameters.getOrDefault("timeoutMs", "0"));
+            if (timeout <= 0 || (timeoutMillis > 0 && timeout > timeoutMillis)) {
+                timeout = timeoutMillis;
+            }
+            request = new Request(exchange, new Puzzle(initialBoard, goal), nodes <= 0 ? maxNodes : nodes, timeout);
+        } catch (IllegalArgumentException e) {
+            respond(exchange, 400, error(e.getMessage()));
+            return;
+        }
+        if (!running || !queue.offer(request)) {
+            rejected.incrementAndGet();
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            respond(exchange, 503, error("Too many requests waiting, try again later"));
+            return;
+        }
+        accepted.incrementAndGet();
+    }
+
+    private void handleStats(HttpExchange exchange) {
+        StringBuilder json = new StringBuilder("{");
+        json.append("\"queued\":").append(queue.size());
+        json.append(",\"accepted\":").append(accepted.get());
+        json.append(",\"rejected\":").append(rejected.get());
+        json.append(",\"batches\":").append(batches.get());
+        json.append(",\"shared\":").append(shared.get());
+        json.append(",\"metrics\":\"").append(solver.getMetrics()).append('"');
+        if (cache != null) {
+            json.append(",\"cache\":\"").append(cache).append('"');
+        }
+        respond(exchange, 200, json.append('}').toString());
+    }
+
+    // The dispatcher thread
+
+    private void dispatch() {
+        List<Request> batch = new ArrayList<>(maxBatch);
+        while (running) {
+            try {
+                Request first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long windowEnd = System.nanoTime() + BATCH_WINDOW_NANOS;
+                while (batch.size() < maxBatch) {
+                    Request next = queue.poll(windowEnd - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                submit(batch);
+            } catch (InterruptedException e) {
+                return; // submit answered the requests it could not hand over
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Private helper method to hand a batch to the solver, one search for every group of identical requests
+    private void submit(List<Request> batch) throws InterruptedException {
+        batches.incrementAndGet();
+        Map<List<Object>, List<Request>> groups = new LinkedHashMap<>();
+        for (Request request : batch) {
+            List<Object> key = List.of(request.puzzle.getInitialBoard(), request.puzzle.getGoalBoard(),
+                    request.maxNodes, request.timeoutMillis);
+            groups.computeIfAbsent(key, k -> new ArrayList<>(1)).add(request);
+        }
+        List<List<Request>> waiting = new ArrayList<>(groups.values());
+        for (int i = 0; i < waiting.size(); i++) {
+            List<Request> group = waiting.get(i);
+            shared.addAndGet(group.size() - 1);
+            Request first = group.get(0); // the earliest deadline of the group
+            try {
+                searchSlots.acquire();
+            } catch (InterruptedException e) {
+                for (List<Request> left : waiting.subList(i, waiting.size())) {
+                    for (Request request : left) {
+                        respond(request.exchange, 503, error("The server is shutting down"));
+                    }
+                }
+                throw e;
+            }
+            solver.submit(first.puzzle, first.limits).whenComplete((solution, failure) -> {
+                searchSlots.release();
+                for (Request request : group) {
+                    if (failure == null) {
+                        respond(request.exchange, 200, toJson(solution));
+                    } else {
+                        Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+                        respond(request.exchange, cause instanceof IllegalArgumentException ? 400 : 500,
+                                error(String.valueOf(cause.getMessage())));
+                    }
+                }
+            });
+        }
+    }
+
+    // Private helper methods for the HTTP exchanges
+
+    private static String toJson(Solution solution) {
+        SearchMetrics metrics = solution.getMetrics();
+        StringBuilder json = new StringBuilder(96);
+        json.append("{\"status\":\"").append(solution.getStatus()).append('"');
+        if (solution.isSolved()) {
+            json.append(",\"cost\":").append(solution.getCost());
+            json.append(",\"moves\":\"").append(solution.getMoveString()).append('"');
+            if (!solution.isOptimal()) {
+                json.append(",\"bound\":").append(String.format("%.3f", solution.getSuboptimalityBound()));
+            }
+        }
+        json.append(",\"expanded\":").append(metrics.getExpanded());
+        json.append(",\"generated\":").append(metrics.getGenerated());
+        json.append(",\"millis\":").append(String.format("%.3f", metrics.getElapsedNanos() / 1e6));
+        return json.append('}').toString();
+    }
+
+    private static String error(String message) {
+        return "{\"error\":\"" + message.replace("\\", "\\\\").replace("\"", "\\\"") + "\"}";
+    }
+
+    private static void respond(HttpExchange exchange, int code, String body) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        try {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(code, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (IOException e) {
+            // the client went away, nobody is left to answer
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                parameters.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    private static String readBody(InputStream body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = body.read(buffer)) > 0) {
+            if (bytes.size() + read > 4096) {
+                throw new IllegalArgumentException("The request body is too large for a board");
+            }
+            bytes.write(buffer, 0, read);
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    // A solve request waiting for its search
+    private static final class Request {
+        private final HttpExchange exchange;
+        private final Puzzle puzzle;
+        private final long maxNodes;
+        private final long timeoutMillis;
+        private final SearchLimits limits; // the deadline is counted from the arrival
+
+        Request(HttpExchange exchange, Puzzle puzzle, long maxNodes, long timeoutMillis) {
+            this.exchange = exchange;
+            this.puzzle = puzzle;
+            this.maxNodes = maxNodes;
+            this.timeoutMillis = timeoutMillis;
+            SearchLimits limits = SearchLimits.nodes(maxNodes);
+            this.limits = timeoutMillis > 0 ? limits.withTimeout(timeoutMillis, TimeUnit.MILLISECONDS) : limits;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+import java.util.ArrayDeque;
+
+// The walking distance heuristic (Takahashi).
+// Looking only at rows, a board becomes a table counting how many tiles of each goal row are in
+// each row, plus the row of the empty cell. A move takes one tile from a row next to the empty
+// cell into the empty cell's row. The fewest such moves to reach the goal table is found for every
+// table by one breadth-first search per goal, and the same is done for columns. Vertical moves
+// only change the row table and horizontal moves only the column table, so the estimate is the
+// sum of both distances.
+public class WalkingDistanceHeuristic implements Heuristic {
+    // Bits used for one count in a table key, enough for counts up to 7
+    private static final int BITS_PER_COUNT = 3;
+
+    private final int size; // Number of rows (and columns) of the boards
+    private final int[] goalRow; // goalRow[tile] is the row of the tile on the goal board
+    private final int[] goalCol; // goalCol[tile] is the column of the tile on the goal board
+    private final LongIntMap rowDistances; // row table key -> moves to the goal row table
+    private final LongIntMap columnDistances; // column table key -> moves to the goal column table
+
+    // Builds the walking distance tables for the given goal board.
+    public WalkingDistanceHeuristic(Board goalBoard) {
+        size = goalBoard.getSize();
+        if (size > 4) {
+            throw new IllegalArgumentException("Walking distance is supported for boards up to 4x4");
+        }
+        goalRow = new int[size * size];
+        goalCol = new int[size * size];
+        for (int cell = 0; cell < size * size; cell++) {
+            goalRow[goalBoard.getTile(cell)] = cell / size;
+            goalCol[goalBoard.getTile(cell)] = cell % size;
+        }
+        rowDistances = buildTable(goalBoard.getEmptyCellRow());
+        columnDistances = buildTable(goalBoard.getEmptyCellCol());
+    }
+
+    @Override
+    public int estimate(Board board) {
+        return rowDistances.get(rowKey(board, -1, -1)) + columnDistances.get(columnKey(board, -1, -1));
+    }
+
+    @Override
+    public int update(Board board, int h, int tile, int from, int to) {
+        if (from / size != to / size) {
+            return h - rowDistances.get(rowKey(board, from, to)) + rowDistances.get(rowKey(board, -1, -1));
+        }
+        return h - columnDistances.get(columnKey(board, from, to)) + columnDistances.get(columnKey(board, -1, -1));
+    }
+
+    // Private helper methods to build the table key of a board.
+    // When from is not -1 the move from -> to is looked at undone (see LinearConflictHeuristic).
+
+    private long rowKey(Board board, int from, int to) {
+        long key = 0;
+        int emptyLine = board.getEmptyCellRow();
+        for (int cell = 0; cell < size * size; cell++) {
+            int tile = tileAt(board, cell, from, to);
+            if (tile == 0) {
+                emptyLine = cell / size;
+            } else {
+                key += 1L << (countShift(cell / size, goalRow[tile]));
+            }
+        }
+        return withEmptyLine(key, emptyLine);
+    }
+
+    private long columnKey(Board board, int from, int to) {
+        long key = 0;
+        int emptyLine = board.getEmptyCellCol();
+        for (int cell = 0; cell < size * size; cell++) {
+            int tile = tileAt(board, cell, from, to);
+            if (tile == 0) {
+                emptyLine = cell % size;
+            } else {
+                key += 1L << (countShift(cell % size, goalCol[tile]));
+            }
+        }
+        return withEmptyLine(key, emptyLine);
+    }
+
+    private static int tileAt(Board board, int cell, int from, int to) {
+        if (cell == from) {
+            return board.getTile(to);
+        }
+        if (cell == to) {
+            return 0;
+        }
+        return board.getTile(cell);
+    }
+
+    // Private helper methods for the key layout: count[line][goalLine] then the empty cell's line
+
+    private int countShift(int line, int goalLine) {
+        return (line * size + goalLine) * BITS_PER_COUNT;
+    }
+
+    private int count(long key, int line, int goalLine) {
+        return (int) (key >>> countShift(line, goalLine)) & ((1 << BITS_PER_COUNT) - 1);
+    }
+
+    private long withEmptyLine(long key, int emptyLine) {
+        return key | ((long) emptyLine << (size * size * BITS_PER_COUNT));
+    }
+
+    private int emptyLine(long key) {
+        return (int) (key >>> (size * size * BITS_PER_COUNT));
+    }
+
+    // Private helper method for the breadth-first search over the tables, starting from the goal
+    // table (every line full of its own tiles, one fewer in the empty cell's line).
+    // Moves are reversible, so the distance from the goal is the distance to it.
+    private LongIntMap buildTable(int goalEmptyLine) {
+        long goal = 0;
+        for (int line = 0; line < size; line++) {
+            int tiles = line == goalEmptyLine ? size - 1 : size;
+            goal += (long) tiles << countShift(line, line);
+        }
+        goal = withEmptyLine(goal, goalEmptyLine);
+
+        LongIntMap distances = new LongIntMap();
+        ArrayDeque<Long> queue = new ArrayDeque<>();
+        distances.put(goal, 0);
+        queue.add(goal);
+        while (!queue.isEmpty()) {
+            long key = queue.poll();
+            int distance = distances.get(key);
+            int emptyLine = emptyLine(key);
+            long counts = key & ~withEmptyLine(0, emptyLine);
+            for (int line = emptyLine - 1; line <= emptyLine + 1; line += 2) {
+                if (line < 0 || line >= size) {
+                    continue;
+                }
+                // a tile of any goal line present in the neighbouring line can slide into the empty cell
+                for (int goalLine = 0; goalLine < size; goalLine++) {
+                    if (count(key, line, goalLine) == 0) {
+                        continue;
+                    }
+                    long next = counts - (1L << countShift(line, goalLine)) + (1L << countShift(emptyLine, goalLine));
+                    next = withEmptyLine(next, line);
+                    if (distances.get(next) < 0) {
+                        distances.put(next, distance + 1);
+                        queue.add(next);
+                    }
+                }
+            }
+        }
+        return distances;
+    }
+}
@@ -0,0 +1,217 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// Weighted A* and its anytime form ARA* (Likhachev, Gordon and Thrun), for boards up to 4x4.
+//
+// Weighted A* orders the open list by g + w * h with a weight w > 1. It goes for the goal much
+// more greedily and expands far fewer nodes, at the price of solutions that may cost more than
+// the optimal ones (at most w times as much with a consistent heuristic).
+//
+// The anytime search runs weighted A* with a large weight to get a first solution quickly, then
+// keeps lowering the weight and improving the solution until the weight reaches 1 or a limit stops
+// it; the best solution found so far is returned. Every round reuses the g-values of the rounds
+// before it: a state is expanded at most once per round, and states that get a cheaper path after
+// their expansion wait in an inconsistent list for the next round instead of being reopened
+// (the last round, with weight 1, reopens them so the final solution is optimal).
+//
+// The bound reported with a solution is its cost divided by the smallest g + h of the open and
+// inconsistent states, a lower bound on the optimal cost whenever the heuristic is admissible.
+public class WeightedAStarSolver {
+    public static final double DEFAULT_WEIGHT = 2; // of the WEIGHTED_A_STAR engine
+    public static final double DEFAULT_INITIAL_WEIGHT = 3; // of the first round of the anytime search
+    public static final double DEFAULT_WEIGHT_STEP = 0.5; // the weight is lowered by this after every round
+
+    private final Board initialBoard;
+    private final long goalState;
+    private final Heuristic heuristic;
+    private final SearchLimits limits;
+    private final SearchListener listener; // null for none
+    private final SearchMetrics metrics = new SearchMetrics();
+    private final OpenList openList = new OpenList();
+    private final NodeMap nodes = new NodeMap(); // packed state -> node with the cheapest path found
+    private final List<Node> inconsistent = new ArrayList<>(); // improved after their expansion this round
+    private LongHashSet closedList; // states expanded in this round
+    private Node goalNode; // the goal with the cheapest path found, null until then
+
+    // One scratch board is moved in place to generate the neighbors of every expanded node
+    private final Board board;
+    private final int[] legalMoves = new int[4];
+
+    private WeightedAStarSolver(Board initialBoard, Board goalBoard, Heuristic heuristic, SearchLimits limits,
+            SearchListener listener) {
+        this.initialBoard = initialBoard;
+        this.goalState = goalBoard.getPacked();
+        this.heuristic = heuristic;
+        this.limits = limits;
+        this.listener = listener;
+        this.board = initialBoard.copy();
+    }
+
+    // Solves how to get the initial state to the final state with at most weight times the minimum moves
+    // (with a consistent heuristic), guided by the Manhattan distance
+    public static List<Board> solve(Board initialBoard, Board goalBoard, double weight) {
+        return search(initialBoard, goalBoard, new ManhattanHeuristic(goalBoard), weight, SearchLimits.NONE, null)
+                .toBoardList();
+    }
+
+    // Searches with weighted A* until the goal is reached or one of the limits is
+    public static Solution search(Board initialBoard, Board goalBoard, Heuristic heuristic, double weight,
+            SearchLimits limits, SearchListener listener) {
+        return search(initialBoard, goalBoard, heuristic, weight, weight, limits, listener);
+    }
+
+    // Searches with the anytime search from the default weights, until the solution is proven optimal or
+    // one of the limits is reached (then the best solution so far is returned, if there is one)
+    public static Solution searchAnytime(Board initialBoard, Board goalBoard, Heuristic heuristic,
+            SearchLimits limits, SearchListener listener) {
+        return searchAnytime(initialBoard, goalBoard, heuristic, DEFAULT_INITIAL_WEIGHT, DEFAULT_WEIGHT_STEP,
+                limits, listener);
+    }
+
+    // Searches with the anytime search, starting at initialWeight and lowering it by weightStep after every round
+    public static Solution searchAnytime(Board initialBoard, Board goalBoard, Heuristic heuristic,
+            double initialWeight, double weightStep, SearchLimits limits, SearchListener listener) {
+        if (!(weightStep > 0)) {
+            throw new IllegalArgumentException("The weight step must be positive, got " + weightStep);
+        }
+        return search(initialBoard, goalBoard, heuristic, initialWeight, weightStep, limits, listener);
+    }
+
+    // Private helper method for both searches, a weightStep equal to the weight means a single round
+    private static Solution search(Board initialBoard, Board goalBoard, Heuristic heuristic, double weight,
+            double weightStep, SearchLimits limits, SearchListener listener) {
+        long start = System.nanoTime();
+        if (!initialBoard.isPackable() || initialBoard.getSize() != goalBoard.getSize()) {
+            throw new IllegalArgumentException("Weighted A* needs boards of the same size, up to "
+                    + Board.MAX_PACKED_SIZE + "x" + Board.MAX_PACKED_SIZE);
+        }
+        if (!(weight >= 1)) {
+            throw new IllegalArgumentException("The weight must be at least 1, got " + weight);
+        }
+        // Check if the initial board state is solvable
+        if (!initialBoard.isSolvable(goalBoard)) {
+            return Solution.unsolvable(initialBoard, new SearchMetrics(), start);
+        }
+        WeightedAStarSolver solver = new WeightedAStarSolver(initialBoard, goalBoard, heuristic, limits, listener);
+        return solver.run(weight, weightStep, start);
+    }
+
+    // Private helper method to run the rounds from the given weight down
+    private Solution run(double weight, double weightStep, long start) {
+        Node root = new Node(initialBoard.getPacked(), null, 0, heuristic.estimate(initialBoard), Board.NO_MOVE);
+        nodes.put(root.getState(), root);
+        if (root.getState() == goalState) {
+            return Solution.solved(initialBoard, root, metrics, start);
+        }
+        openList.setWeight(weight);
+        openList.add(root);
+        boolean singleRound = weightStep >= weight;
+        while (true) {
+            closedList = new LongHashSet();
+            Solution.Status stop = improvePath(weight == 1);
+            metrics.closed(nodes.size());
+            if (goalNode == null) {
+                if (stop != null) {
+                    return Solution.stopped(initialBoard, stop, metrics, start);
+                }
+                return Solution.unsolvable(initialBoard, metrics, start);
+            }
+            double bound = getBound();
+            if (stop != null || bound == 1 || weight == 1 || singleRound) {
+                return Solution.solved(initialBoard, goalNode, bound, metrics, start);
+            }
+
+            // the next round: a smaller weight, with the improved states back in the open list
+            weight = Math.max(1, weight - weightStep);
+            for (Node node : inconsistent) {
+                if (node.getHeapIndex() < 0) {
+                    openList.add(node);
+                }
+            }
+            inconsistent.clear();
+            openList.setWeight(weight);
+        }
+    }
+
+    // Expands nodes in the order of the weight until the goal costs no more than the best open node.
+    // States improved after their expansion in this round are opened again if reopen is set, otherwise
+    // they wait in the inconsistent list. Returns the limit that stopped the round, or null.
+    private Solution.Status improvePath(boolean reopen) {
+        double weight = openList.getWeight();
+        while (!openList.isEmpty()) {
+            Node node = openList.peek();
+            if (goalNode != null && goalNode.getGValue() <= node.getGValue() + weight * node.getHValue()) {
+                return null;
+            }
+            Solution.Status stop = limits.check(metrics.getExpanded());
+            if (stop != null) {
+                return stop;
+            }
+            openList.poll();
+            closedList.add(node.getState());
+            metrics.expanded();
+            if (listener != null && metrics.getExpanded() % SearchMetrics.PROGRESS_INTERVAL == 0) {
+                metrics.closed(nodes.size());
+                listener.onProgress(metrics);
+            }
+
+            board.setPacked(node.getState());
+            int emptyCell = board.getEmptyCell();
+            int moveCount = board.getLegalMoves(legalMoves);
+            for (int i = 0; i < moveCount; i++) {
+                int move = legalMoves[i];
+                if (node.getMove() != Board.NO_MOVE && move == Board.reverseMove(node.getMove()))
+                    continue;
+
+                int tile = board.applyMove(move);
+                long childState = board.getPacked();
+                metrics.generated();
+                int childG = node.getGValue() + 1;
+                Node child = nodes.get(childState);
+                if (child == null) {
+                    int childH = heuristic.update(board, node.getHValue(), tile, board.getEmptyCell(), emptyCell);
+                    child = new Node(childState, node, childG, childH, move);
+                    nodes.put(childState, child);
+                    if (childState == goalState) {
+                        goalNode = child;
+                    } else {
+                        openList.add(child);
+                    }
+                } else if (childG >= child.getGValue()) {
+                    metrics.duplicate();
+                } else if (child.getHeapIndex() >= 0) {
+                    openList.decreaseKey(child, childState, childG, child.getHValue(), node, move);
+                } else {
+                    child.setGValue(childG);
+                    child.setParent(node);
+                    child.setMove(move);
+                    if (childState == goalState) {
+                        goalNode = child;
+                    } else if (!closedList.contains(childState)) {
+                        openList.add(child); // expanded in an earlier round, it is open again in this one
+                    } else if (reopen) {
+                        metrics.reopened();
+                        openList.add(child);
+                    } else {
+                        inconsistent.add(child);
+                    }
+                }
+                board.undoMove(move);
+            }
+            metrics.open(openList.size());
+        }
+        return null;
+    }
+
+    // Private helper method for the bound of the current solution: its cost over a lower bound on the optimal cost
+    private double getBound() {
+        int lowerBound = openList.getMinFValue();
+        for (Node node : inconsistent) {
+            lowerBound = Math.min(lowerBound, node.getFValue());
+        }
+        if (lowerBound >= goalNode.getGValue()) {
+            return 1; // nothing left can lead to a cheaper solution
+        }
+        return (double) goalNode.getGValue() / lowerBound;
+    }
+}
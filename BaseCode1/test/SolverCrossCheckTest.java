@@ -0,0 +1,154 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.MethodSource;
+
+// Checks the solvers against each other and against the DistanceTable, which holds the optimal
+// distance of every 3x3 board: every optimal engine with every admissible heuristic has to find a
+// solution of exactly that length, on a seeded sample of boards for two goals.
+class SolverCrossCheckTest {
+    private static final long SEED = 20240501L;
+    private static final int SAMPLE = 40; // boards per goal
+
+    // The standard goal and the goal of Korf's instances, which has other symmetries
+    private static final Board[] GOALS_3 = {Board.standardGoal(3), Board.parse("0,1,2,3,4,5,6,7,8")};
+
+    private static final SearchEngine[] OPTIMAL_ENGINES = {SearchEngine.A_STAR, SearchEngine.A_STAR_OFF_HEAP,
+            SearchEngine.IDA_STAR, SearchEngine.HDA_STAR, SearchEngine.BIDIRECTIONAL, SearchEngine.LOOKUP_TABLE};
+
+    // The admissible heuristics: the HeuristicType values but the pattern databases, which are built
+    // here instead of loaded from files, with and without the maximum over the goal symmetries
+    private static final String[] HEURISTICS = {"MANHATTAN", "MISPLACED", "LINEAR_CONFLICT", "WALKING_DISTANCE",
+            "PATTERN_DATABASE", "PATTERN_DATABASE_SYMMETRIC"};
+
+    static Stream<Arguments> enginesAndHeuristics() {
+        List<Arguments> arguments = new ArrayList<>();
+        for (SearchEngine engine : OPTIMAL_ENGINES) {
+            for (String heuristic : HEURISTICS) {
+                arguments.add(Arguments.of(engine, heuristic));
+            }
+        }
+        return arguments.stream();
+    }
+
+    @ParameterizedTest(name = "{0} with {1}")
+    @MethodSource("enginesAndHeuristics")
+    void optimalEnginesFindTheDistanceTableLength(SearchEngine engine, String heuristicName) {
+        for (Board goal : GOALS_3) {
+            Heuristic heuristic = heuristic(heuristicName, goal);
+            DistanceTable table = DistanceTable.forGoal(goal);
+            for (Board board : sample(goal)) {
+                int distance = table.getDistance(board);
+                assertTrue(heuristic.estimate(board) <= distance, () -> heuristicName + " overestimates " + board);
+                Solution solution = engine.search(board, goal, heuristic);
+                assertTrue(solution.isSolved(), () -> engine + " did not solve " + board);
+                assertEquals(distance, solution.getCost(), () -> engine + " with " + heuristicName + " on " + board);
+                assertReachesGoal(solution, goal);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(SearchEngine.class)
+    void everyEngineReportsUnsolvableBoards(SearchEngine engine) {
+        Board goal = Board.standardGoal(3);
+        Board board = Board.parse("2,1,3,4,5,6,7,8,0"); // one swap away from the goal, the other parity
+        Solution solution = engine.search(board, goal, new ManhattanHeuristic(goal));
+        assertEquals(Solution.Status.UNSOLVABLE, solution.getStatus());
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = SearchEngine.class, names = {"WEIGHTED_A_STAR", "ANYTIME"})
+    void suboptimalEnginesStayWithinTheirBound(SearchEngine engine) {
+        for (Board goal : GOALS_3) {
+            Heuristic heuristic = new LinearConflictHeuristic(goal);
+            DistanceTable table = DistanceTable.forGoal(goal);
+            for (Board board : sample(goal)) {
+                int distance = table.getDistance(board);
+                Solution solution = engine.search(board, goal, heuristic);
+                assertTrue(solution.isSolved());
+                assertTrue(solution.getCost() >= distance);
+                assertTrue(solution.getCost() <= solution.getSuboptimalityBound() * distance + 1e-9,
+                        () -> engine + " cost " + solution.getCost() + " above its bound on " + board);
+                assertReachesGoal(solution, goal);
+            }
+        }
+    }
+
+    // Korf's first two 15 puzzle instances, 57 and 55 moves
+    @Test
+    void korfInstancesHaveTheirKnownLengths() {
+        Board goal = Board.parse("0,1,2,3,4,5,6,7,8,9,10,11,12,13,14,15");
+        Heuristic heuristic = new LinearConflictHeuristic(goal);
+        Solution first = SearchEngine.IDA_STAR.search(Board.parse("14 13 15 7 11 12 9 5 6 0 2 1 4 8 10 3"), goal,
+                heuristic);
+        assertEquals(57, first.getCost());
+        assertReachesGoal(first, goal);
+        Board second = Board.parse("13 5 4 10 9 12 8 14 2 3 7 1 0 15 11 6");
+        for (SearchEngine engine : new SearchEngine[] {SearchEngine.IDA_STAR, SearchEngine.A_STAR_OFF_HEAP}) {
+            Solution solution = engine.search(second, goal, heuristic);
+            assertEquals(55, solution.getCost(), engine::toString);
+            assertReachesGoal(solution, goal);
+        }
+    }
+
+    // The breadth-first search on disk counts as many boards at every distance as the DistanceTable
+    @Test
+    void diskFrontierSearchMatchesTheDistanceTable() throws Exception {
+        Board goal = Board.standardGoal(3);
+        Path directory = Files.createTempDirectory("bfs");
+        long[] histogram = new DiskFrontierSearch(goal, directory, 1 << 12).run(Integer.MAX_VALUE);
+        long[] expected = new long[histogram.length];
+        DistanceTable table = DistanceTable.forGoal(goal);
+        for (int index = 0; index < DistanceTable.STATES; index++) {
+            expected[table.getDistance(table.getState(index))]++;
+        }
+        assertEquals(Arrays.toString(expected), Arrays.toString(histogram));
+    }
+
+    // Private helper methods
+
+    // The boards of the sample for a goal, the same on every run
+    private static List<Board> sample(Board goal) {
+        InstanceGenerator generator = new InstanceGenerator(goal, SEED);
+        List<Board> boards = new ArrayList<>();
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < SAMPLE; i++) {
+            boards.add(generator.solvable(random));
+        }
+        boards.add(generator.atDistance(generator.getMaxDistance(), random)); // one of the hardest boards
+        boards.add(goal.copy());
+        return boards;
+    }
+
+    private static Heuristic heuristic(String name, Board goal) {
+        if (name.startsWith("PATTERN_DATABASE")) {
+            List<PatternDatabase> databases = new ArrayList<>();
+            for (int[] pattern : PatternDatabaseBuilder.defaultPartition(goal)) {
+                databases.add(PatternDatabaseBuilder.build(goal, pattern));
+            }
+            return new PatternDatabaseHeuristic(goal, databases, name.endsWith("SYMMETRIC"));
+        }
+        return HeuristicType.valueOf(name).create(goal);
+    }
+
+    private static void assertReachesGoal(Solution solution, Board goal) {
+        Board board = solution.getInitialBoard();
+        for (int i = 0; i < solution.getCost(); i++) {
+            board.applyMove(solution.getMove(i));
+        }
+        assertEquals(goal, board, () -> "the moves of " + solution + " do not reach the goal");
+    }
+}